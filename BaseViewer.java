@@ -12,8 +12,6 @@ import com.mysterymaster.puzzle.Puzzle;
 import com.mysterymaster.puzzle.Verb;
 import com.mysterymaster.solver.Solver;
 
-import java.util.Locale;
-
 /**
  * The parent class for viewers that manage a form.<br>
  * Copyright (c) 2018 mysterymaster.com. All rights reserved.
@@ -27,8 +25,14 @@ class BaseViewer {
 	/** Newline character. */
 	static final char NL = '\n';
 
-	/** Default locale for the String.format method. */
-	private static final Locale defaultLocale = Locale.getDefault();
+	/** Number of small integers whose strings are cached. */
+	private static final int MAX_CACHED_INTS = 1024;
+
+	/** Strings for the integers 0 to MAX_CACHED_INTS - 1. Made when first needed. */
+	private static final String[] intStrings = new String[MAX_CACHED_INTS];
+
+	/** Digits of the integer being set. Used on the UI thread only. */
+	private static final char[] digits = new char[11];
 
 	/**
 	 * Displays debug messages in the Logcat window of the Android Studio IDE. Filter on Warn.
@@ -41,12 +45,54 @@ class BaseViewer {
 
 	/**
 	 * Sets the text of a TextView or EditText field when the value is an integer.<br>
+	 * The field is not touched if it already displays the value, and no string is made for small values.<br>
 	 * Note: TextView is the parent of EditText.
 	 * @param fld Field.
 	 * @param val Integer value.
 	 */
 	static void setText(final TextView fld, final int val) {
-		fld.setText(String.format(defaultLocale,"%d", val));
+		int start = formatInt(val);
+		if (isShown(fld.getText(), start)) return;
+		if (val >= 0 && val < MAX_CACHED_INTS) {
+			String str = intStrings[val];
+			if (str == null) intStrings[val] = str = new String(digits, start, digits.length - start);
+			fld.setText(str);
+		}
+		else {
+			// The field keeps the array it is given, so the digits buffer must not be passed to it.
+			fld.setText(new String(digits, start, digits.length - start));
+		}
+	}
+
+	/**
+	 * Writes the digits of the integer at the end of the digits buffer.
+	 * @param val Integer value.
+	 * @return Index of the first character in the buffer.
+	 */
+	private static int formatInt(final int val) {
+		int i = digits.length;
+		long v = Math.abs((long) val);
+		do {
+			digits[--i] = (char) ('0' + v % 10);
+			v /= 10;
+		} while (v != 0);
+		if (val < 0) digits[--i] = '-';
+		return i;
+	}
+
+	/**
+	 * Returns true if the text equals the characters in the digits buffer from the given index, otherwise false.
+	 * @param text Text of the field.
+	 * @param start Index of the first character in the buffer.
+	 * @return Boolean.
+	 */
+	private static boolean isShown(final CharSequence text, final int start) {
+		int n = digits.length - start;
+		if (text == null || text.length() != n) return false;
+		for (int i = 0; i < n; i++) {
+			if (text.charAt(i) != digits[start + i]) return false;
+		}
+		return true;
 	}
 
 	/**
@@ -64,28 +110,24 @@ class BaseViewer {
 	}
 
 	/**
-	 * Updates the grid cell's text and color based on the given verb. Called by GridsViewer.
+	 * Sets the text color of the field based on the verb. Called by LinksViewer, GridsViewer.
 	 * @param txv TextView.
 	 * @param verb Verb.
 	 */
-	static void setGridVerb(final TextView txv, final Verb verb) {
-		GridsViewer.GridData tag = (GridsViewer.GridData) txv.getTag();
-		tag.verb = verb;
-
-		txv.setText(verb.code);
-		setTextColor(txv, verb);
+	static void setTextColor(final TextView txv, final Verb verb) {
+		txv.setTextColor(getTextColor(verb));
 	}
 
 	/**
-	 * Sets the text color of the field based on the verb. Called by LinksViewer, GridsViewer.
-	 * @param txv TextView.
+	 * Returns the text color for the verb. Called by setTextColor, GridsCanvas.
 	 * @param verb Verb.
+	 * @return Color.
 	 */
-	static void setTextColor(final TextView txv, final Verb verb) {
+	static int getTextColor(final Verb verb) {
 		switch (verb.num) {
-			case 0: txv.setTextColor(Color.RED); break;
-			case 1: txv.setTextColor(Color.BLACK); break;
-			case 2: txv.setTextColor(Color.GRAY); break;
+			case 0: return Color.RED;
+			case 1: return Color.BLACK;
+			default: return Color.GRAY;
 		}
 	}
 
@@ -0,0 +1,211 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzles.Puzzles;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The Batch Solver solves many puzzles at once, and prints one aggregated report.<br>
+ * Each puzzle has its own solver, setup options, and headless viewer.<br>
+ * Note: Puzzles.getPuzzleByNum sets the static verbs of the Puzzle class, and the solver compares the verbs of a
+ * puzzle with them, so two puzzles cannot be created or solved at the same time in one JVM. The catalog is therefore
+ * split into slices, and each slice is solved one puzzle after another by its own worker JVM. A fork-join pool
+ * starts the workers and reads their reports, which are merged in the order of the puzzle numbers.<br>
+ * Usage: BatchSolver [-j jvms] [puzzleNum...]<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class BatchSolver {
+	/** Argument that makes the JVM a worker, which solves the puzzles that follow it and writes one line per report. */
+	private static final String WORKER_ARG = "-worker";
+
+	private BatchSolver() {}
+
+	/**
+	 * Solves the puzzles in the given number of worker JVMs, and returns their reports in the same order.<br>
+	 * The puzzles are dealt to the workers in turn, so the slow puzzles of the catalog are spread over the workers.
+	 * @param puzzleNums One-based numbers of the puzzles.
+	 * @param jvms Number of worker JVMs.
+	 * @return List of reports.
+	 */
+	static List<SolveReport> solve(final int[] puzzleNums, final int jvms) {
+		int n = Math.max(1, Math.min(jvms, puzzleNums.length));
+		List<List<String>> slices = new ArrayList<>(n);
+		for (int k = 0; k < n; k++) slices.add(new ArrayList<>());
+		for (int i = 0; i < puzzleNums.length; i++) slices.get(i % n).add(Integer.toString(puzzleNums[i]));
+
+		ForkJoinPool pool = new ForkJoinPool(n);
+		Map<Integer, SolveReport> byNum = new HashMap<>();
+		try {
+			List<ForkJoinTask<List<SolveReport>>> tasks = new ArrayList<>(n);
+			for (List<String> slice : slices) tasks.add(pool.submit(() -> solveInWorker(slice)));
+			for (ForkJoinTask<List<SolveReport>> task : tasks) {
+				for (SolveReport report : task.join()) byNum.put(report.puzzleNum, report);
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		List<SolveReport> reports = new ArrayList<>(puzzleNums.length);
+		for (int puzzleNum : puzzleNums) {
+			SolveReport report = byNum.get(puzzleNum);
+			if (report == null) throw new IllegalStateException("No report for puzzle " + puzzleNum);
+			reports.add(report);
+		}
+		return reports;
+	}
+
+	/**
+	 * Starts a worker JVM with the same class path, and returns the reports it writes.<br>
+	 * The error output of the worker goes to the error output of this JVM.
+	 * @param puzzleNums One-based numbers of the puzzles of the slice.
+	 * @return List of reports.
+	 */
+	private static List<SolveReport> solveInWorker(final List<String> puzzleNums) {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(BatchSolver.class.getName());
+		command.add(WORKER_ARG);
+		command.addAll(puzzleNums);
+
+		List<SolveReport> reports = new ArrayList<>(puzzleNums.size());
+		try {
+			Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = in.readLine()) != null) {
+					SolveReport report = SolveReport.parseLine(line);
+					if (report != null) reports.add(report);
+				}
+			}
+			int status = process.waitFor();
+			if (status != 0) throw new IllegalStateException("Worker for puzzles " + puzzleNums + " exited with status " + status);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		return reports;
+	}
+
+	/**
+	 * Solves the puzzles one after another in this JVM, and writes one line per report. Called by main in a worker JVM.
+	 * @param puzzleNums One-based numbers of the puzzles.
+	 */
+	private static void work(final int[] puzzleNums) {
+		for (int puzzleNum : puzzleNums) {
+			System.out.println(SolveRunner.solve(puzzleNum, null).toLine());
+			System.out.flush();
+		}
+	}
+
+	/**
+	 * Prints one line per puzzle, followed by the totals and the level counters summed over all valid puzzles.
+	 * @param out Output.
+	 * @param reports List of reports.
+	 * @param wallNanos Wall time of the whole batch in nanoseconds.
+	 */
+	static void print(final PrintStream out, final List<SolveReport> reports, final long wallNanos) {
+		int[][] levelPairs = null;
+		int[][] levelMarks = null;
+		long sumNanos = 0;
+		int numValid = 0, numMarks = 0, numGuesses = 0, numFactHits = 0, numRuleHits = 0;
+
+		out.printf("%4s %-40s %12s %8s %8s %8s %8s%n", "#", "Puzzle", "ms", "Marks", "Guesses", "FactHits", "RuleHits");
+		for (SolveReport report : reports) {
+			if (report.rs != 0) {
+				out.printf("%4d %-40s invalid rs=%d%n", report.puzzleNum, report.title, report.rs);
+				continue;
+			}
+			out.printf("%4d %-40s %12.3f %8d %8d %8d %8d%n", report.puzzleNum, report.title, report.getMillis(),
+				report.numMarks, report.numGuesses, report.numFactHits, report.numRuleHits);
+
+			++numValid;
+			sumNanos += report.nanos;
+			numMarks += report.numMarks;
+			numGuesses += report.numGuesses;
+			numFactHits += report.numFactHits;
+			numRuleHits += report.numRuleHits;
+			levelPairs = addCounts(levelPairs, report.levelPairs);
+			levelMarks = addCounts(levelMarks, report.levelMarks);
+		}
+
+		out.printf("Solved %d of %d puzzles in %.3f ms wall time, %.3f ms total solve time%n",
+			numValid, reports.size(), wallNanos / 1e6, sumNanos / 1e6);
+		out.printf("Totals: marks %d, guesses %d, fact hits %d, rule hits %d%n", numMarks, numGuesses, numFactHits, numRuleHits);
+		if (levelPairs != null) {
+			SolveReport.printTable(out, "Pairs By Level", levelPairs);
+			SolveReport.printTable(out, "Marks By Level", levelMarks);
+		}
+	}
+
+	/**
+	 * Adds the counts to the sums, and returns the sums.
+	 * @param sums 2D array of sums, or null.
+	 * @param counts 2D array of counts.
+	 * @return 2D array of sums.
+	 */
+	private static int[][] addCounts(int[][] sums, final int[][] counts) {
+		if (sums == null) {
+			sums = new int[counts.length][];
+			for (int i = 0; i < counts.length; i++) sums[i] = new int[counts[i].length];
+		}
+		for (int i = 0; i < counts.length; i++) {
+			for (int j = 0; j < counts[i].length; j++) sums[i][j] += counts[i][j];
+		}
+		return sums;
+	}
+
+	/**
+	 * Solves the given puzzles, or every puzzle in the catalog, and prints the report.
+	 * @param args Optional "-j jvms" for the number of worker JVMs (defaults to the number of processors),
+	 * followed by zero or more puzzle numbers.
+	 */
+	public static void main(final String[] args) {
+		boolean okWorker = args.length > 0 && WORKER_ARG.equals(args[0]);
+		int jvms = Runtime.getRuntime().availableProcessors();
+		int i0 = okWorker ? 1 : 0;
+		if (!okWorker && args.length >= 2 && "-j".equals(args[0])) {
+			jvms = Integer.parseInt(args[1]);
+			i0 = 2;
+		}
+
+		int[] puzzleNums = new int[args.length - i0];
+		for (int i = i0; i < args.length; i++) puzzleNums[i - i0] = Integer.parseInt(args[i]);
+
+		if (okWorker) {
+			work(puzzleNums);
+			return;
+		}
+
+		if (puzzleNums.length == 0) {
+			puzzleNums = new int[Puzzles.titles.length - 1];
+			for (int i = 0; i < puzzleNums.length; i++) puzzleNums[i] = i + 1;
+		}
+
+		long t0 = System.nanoTime();
+		List<SolveReport> reports = solve(puzzleNums, jvms);
+		long wallNanos = System.nanoTime() - t0;
+
+		print(System.out, reports, wallNanos);
+	}
+}
@@ -0,0 +1,46 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.solver.Solver;
+
+/**
+ * The Board Counters class is an immutable snapshot of the solver counters shown in the Board form.<br>
+ * A snapshot is taken on the worker thread between two solver steps, so its numbers agree with each other.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class BoardCounters {
+	final int numGuesses;
+	final int numPairs;
+	final int numMarks;
+	final int numFacts;
+	final int numFactHits;
+	final int numRules;
+	final int numRuleHits;
+
+	/**
+	 * Constructor. Copies the counters of the solver.
+	 * @param solver Solver.
+	 */
+	BoardCounters(final Solver solver) {
+		numGuesses  = solver.numGuesses;
+		numPairs    = solver.numPairs;
+		numMarks    = solver.numMarks;
+		numFacts    = solver.numFacts;
+		numFactHits = solver.numFactHits;
+		numRules    = solver.numRules;
+		numRuleHits = solver.numRuleHits;
+	}
+
+	/** Constructor. Called when a solution is replayed. */
+	BoardCounters(final int numGuesses, final int numPairs, final int numMarks, final int numFacts,
+			final int numFactHits, final int numRules, final int numRuleHits) {
+		this.numGuesses  = numGuesses;
+		this.numPairs    = numPairs;
+		this.numMarks    = numMarks;
+		this.numFacts    = numFacts;
+		this.numFactHits = numFactHits;
+		this.numRules    = numRules;
+		this.numRuleHits = numRuleHits;
+	}
+}
@@ -82,6 +82,12 @@ final class BoardViewer extends BaseViewer {
 				case "Resume": activity.doResume(true); break;
 			}
 		});
+		btnSolve.setOnLongClickListener(view -> {
+			if (!"Resume".equals(btnSolve.getText().toString())) return false;
+			activity.saySnackbar(view, "You stepped to the next mark.");
+			activity.doStep(1);
+			return true;
+		});
 
 		btnReset = activity.findViewById(R.id.btnReset);
 		btnReset.setEnabled(false);
@@ -111,18 +117,24 @@ final class BoardViewer extends BaseViewer {
 		btnSolve.setEnabled(b);
 	}
 
-	/** Resets the form.<br>Called by constructor, activity.reset. */
+	/**
+	 * Resets the form.<br>Called by constructor, activity.reset.<br>
+	 * Note: The counters come from the latest snapshot, since the worker may be running after the activity is recreated.
+	 * The maximum pairs and marks are only set by solver.setPuzzle on the UI thread.
+	 */
 	void reset() {
+		msgPending = null;
+		BoardCounters c = shownCounters = activity.holder.counters;
 		txtLevelNum.setText("");
-		setText(txtNumGuesses, solver.numGuesses);
-		setText(txtNumPairs, solver.numPairs);
+		setText(txtNumGuesses, c.numGuesses);
+		setText(txtNumPairs, c.numPairs);
 		setText(txtMaxPairs, solver.maxPairs);
-		setText(txtNumMarks, solver.numMarks);
+		setText(txtNumMarks, c.numMarks);
 		setText(txtMaxMarks, solver.maxMarks);
-		setText(txtNumFacts, solver.numFacts);
-		setText(txtNumFactHits, solver.numFactHits);
-		setText(txtNumRules, solver.numRules);
-		setText(txtNumRuleHits, solver.numRuleHits);
+		setText(txtNumFacts, c.numFacts);
+		setText(txtNumFactHits, c.numFactHits);
+		setText(txtNumRules, c.numRules);
+		setText(txtNumRuleHits, c.numRuleHits);
 
 		if (puzzle != null) {
 			setText(txtMaxFacts, puzzle.maxFacts);
@@ -144,7 +156,31 @@ final class BoardViewer extends BaseViewer {
 	 * @param msg Message, or null.
 	 */
 	void setMsg(final String msg) {
-		if (msg != null) txtMessage.setText(msg);
+		if (msg != null) {
+			txtMessage.setText(msg);
+			msgPending = null;
+		}
+	}
+
+	/**
+	 * Displays the message while a puzzle is loading, and disables the Solve button.<br>Called by activity.sayLoading.
+	 * @param msg Message.
+	 */
+	void sayLoading(final String msg) {
+		txtMessage.setText(msg);
+		msgPending = null;
+		btnSolve.setEnabled(false);
+	}
+
+	/**
+	 * Updates the board after a cached solution is replayed, so the user can reset it.<br>Called by activity.replayStopped.
+	 * @param msg Message.
+	 */
+	void sayReplayed(final String msg) {
+		setMsg(msg);
+		btnSolve.setText(strSolve);
+		btnReset.setText(strReset);
+		btnReset.setEnabled(true);
 	}
 
 	/** Sets the caption for the Solve button to "Pause". */
@@ -160,7 +196,7 @@ final class BoardViewer extends BaseViewer {
 	// <editor-fold defaultstate="collapsed" desc="IViewer">
 
 	/**
-	 * Updates the board when a thread starts running.<br>Called by activity.sayStarted.
+	 * Updates the board when a thread starts running.<br>Called by activity.sayEvent.
 	 * @param msg Message.
 	 */
 	void sayStarted(final String msg) {
@@ -171,7 +207,7 @@ final class BoardViewer extends BaseViewer {
 	}
 
 	/**
-	 * Updates the board when a thread stops running.<br>Called by activity.sayStopped.
+	 * Updates the board when a thread stops running.<br>Called by activity.sayEvent.
 	 * @param msg Message.
 	 */
 	void sayStopped(final String msg) {
@@ -181,7 +217,7 @@ final class BoardViewer extends BaseViewer {
 	}
 
 	/**
-	 * Updates the board when the level changes.<br>Called by activity.sayLevel.
+	 * Updates the board when the level changes.<br>Called by activity.sayEvent.
 	 * @param msg Message.
 	 */
 	void sayLevel(final String msg) {
@@ -189,48 +225,73 @@ final class BoardViewer extends BaseViewer {
 	}
 
 	/**
-	 * Updates the board when a mark is entered.<br>Called by activity.sayAddMark.
+	 * Updates the board when a mark is entered.<br>Called by activity.sayEvent.<br>
+	 * Note: The counters are repainted by the flush method from the latest snapshot.
 	 * @param msg Message.
 	 */
 	void sayAddMark(final String msg) {
-		setMsg(msg);
-		setText(txtNumGuesses, solver.numGuesses);
-		setText(txtNumMarks, solver.numMarks);
-		setText(txtNumPairs, solver.numPairs);
-		setText(txtNumFacts, solver.numFacts); setText(txtNumFactHits, solver.numFactHits);
-		setText(txtNumRules, solver.numRules); setText(txtNumRuleHits, solver.numRuleHits);
+		setPendingMsg(msg);
 	}
 
 	/**
-	 * Updates the board when a mark is removed.<br>Called by activity.sayRemoveMark.
+	 * Updates the board when a mark is removed.<br>Called by activity.sayEvent.
 	 * @param msg Message.
 	 */
 	void sayRemoveMark(final String msg) {
-		setMsg(msg);
-		setText(txtNumMarks, solver.numMarks);
-		setText(txtNumPairs, solver.numPairs);
-		setText(txtNumFacts, solver.numFacts);
-		setText(txtNumRules, solver.numRules);
+		setPendingMsg(msg);
 	}
 
 	/**
-	 * Updates the board when a fact is violated.<br>Called by activity.sayFactViolation.
+	 * Updates the board when a fact is violated.<br>Called by activity.sayEvent.
 	 * @param msg Message.
 	 */
 	void sayFactViolation(final String msg) {
-		setMsg(msg);
-		setText(txtNumFacts, solver.numFacts);
-		setText(txtNumFactHits, solver.numFactHits);
+		setPendingMsg(msg);
 	}
 
 	/**
-	 * Updates the board when a rule is violated.<br>Called by activity.sayRuleViolation.
+	 * Updates the board when a rule is violated.<br>Called by activity.sayEvent.
 	 * @param msg Message.
 	 */
 	void sayRuleViolation(final String msg) {
-		setMsg(msg);
-		setText(txtNumRules, solver.numRules);
-		setText(txtNumRuleHits, solver.numRuleHits);
+		setPendingMsg(msg);
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Frame">
+
+	/** Latest message not yet displayed, or null. */
+	private String msgPending = null;
+
+	/** Snapshot of the counters displayed, or the snapshot that was current when the form was reset. */
+	private BoardCounters shownCounters = null;
+
+	/**
+	 * Saves the message to display at the end of the frame.
+	 * @param msg Message.
+	 */
+	private void setPendingMsg(final String msg) {
+		if (msg != null) msgPending = msg;
+	}
+
+	/**
+	 * Repaints the message changed during the frame, and the counters if the worker published a new snapshot.<br>
+	 * The counters are never read from the solver while it is working. Called by activity.flush.
+	 */
+	void flush() {
+		if (msgPending != null) {
+			txtMessage.setText(msgPending);
+			msgPending = null;
+		}
+		BoardCounters c = activity.holder.counters;
+		if (c == null || c == shownCounters) return;
+		shownCounters = c;
+		setText(txtNumGuesses, c.numGuesses);
+		setText(txtNumMarks, c.numMarks);
+		setText(txtNumPairs, c.numPairs);
+		setText(txtNumFacts, c.numFacts); setText(txtNumFactHits, c.numFactHits);
+		setText(txtNumRules, c.numRules); setText(txtNumRuleHits, c.numRuleHits);
 	}
 
 	// </editor-fold>
@@ -0,0 +1,176 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Noun;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzles.Puzzles;
+import com.mysterymaster.solver.Solver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The Catalog Benchmark measures the validate, solve, and user mark operations for each puzzle in the catalog.<br>
+ * Each operation reports operations per second, and bytes allocated per operation when the JVM supports it.<br>
+ * Usage: CatalogBenchmark [-w warmups] [-i iterations] [puzzleNum...]<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class CatalogBenchmark {
+	/** Thread bean used to read the bytes allocated by the current thread. */
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	/** Number of warmup iterations per operation. */
+	private int warmups = 5;
+
+	/** Number of measured iterations per operation. */
+	private int iterations = 20;
+
+	private CatalogBenchmark() {}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread, or -1 if the JVM does not support it.
+	 * @return Number of bytes.
+	 */
+	private static long getAllocatedBytes() {
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Measures the operation, and prints one line for it.<br>
+	 * The setup runs before each iteration, and is neither timed nor counted in the allocations.<br>
+	 * An iteration whose operation fails is counted, but excluded from the time and the allocations.
+	 * @param puzzleNum One-based number of the puzzle.
+	 * @param name Name of the operation.
+	 * @param setUp Setup for each iteration.
+	 * @param op Operation to measure, which returns true if it succeeded.
+	 */
+	private void measure(final int puzzleNum, final String name, final Runnable setUp, final BooleanSupplier op) {
+		for (int i = 0; i < warmups; i++) {
+			setUp.run();
+			op.getAsBoolean();
+		}
+
+		long nanos = 0;
+		long bytes = 0;
+		int failed = 0;
+		for (int i = 0; i < iterations; i++) {
+			setUp.run();
+			long a0 = getAllocatedBytes();
+			long t0 = System.nanoTime();
+			boolean ok = op.getAsBoolean();
+			long t1 = System.nanoTime();
+			long a1 = getAllocatedBytes();
+			if (!ok) {
+				++failed;
+				continue;
+			}
+			nanos += t1 - t0;
+			bytes += a1 - a0;
+		}
+
+		int succeeded = iterations - failed;
+		String failures = failed > 0 ? " (" + failed + " of " + iterations + " failed)" : "";
+		if (succeeded == 0) {
+			System.out.printf("%4d %-10s %12s%s%n", puzzleNum, name, "-", failures);
+			return;
+		}
+		double opsPerSec = nanos > 0 ? succeeded * 1e9 / nanos : 0;
+		if (getAllocatedBytes() < 0) {
+			System.out.printf("%4d %-10s %12.1f ops/s%s%n", puzzleNum, name, opsPerSec, failures);
+			return;
+		}
+		double bytesPerOp = (double) bytes / succeeded;
+		double mbPerSec = bytesPerOp * opsPerSec / (1024 * 1024);
+		System.out.printf("%4d %-10s %12.1f ops/s %14.0f B/op %10.1f MB/s%s%n", puzzleNum, name, opsPerSec, bytesPerOp, mbPerSec, failures);
+	}
+
+	/**
+	 * Returns the first pair of nouns of different types that is still "Maybe" after the solver is reset, or null.
+	 * @param puzzle Puzzle given to the solver.
+	 * @param solver Solver.
+	 * @return Pair of nouns, or null.
+	 */
+	private static Noun[] findMaybePair(final Puzzle puzzle, final Solver solver) {
+		solver.reset();
+		for (int t1 = 0; t1 < puzzle.nounTypes.size(); t1++) {
+			for (int t2 = t1 + 1; t2 < puzzle.nounTypes.size(); t2++) {
+				for (Noun noun1 : puzzle.nounTypes.get(t1).nouns) {
+					for (Noun noun2 : puzzle.nounTypes.get(t2).nouns) {
+						if (solver.getGridVerb(noun1, noun2).num == Puzzle.Maybe.num) return new Noun[]{noun1, noun2};
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Measures the operations for the puzzle.
+	 * @param puzzleNum One-based number of the puzzle.
+	 */
+	private void run(final int puzzleNum) {
+		final Solver solver = new Solver(new HeadlessViewer(), SolveRunner.getSpots());
+		final Puzzle[] puzzles = new Puzzle[1];
+
+		System.out.println("# " + puzzleNum + " " + Puzzles.titles[puzzleNum]);
+
+		// Puzzle.validate on a newly loaded puzzle.
+		measure(puzzleNum, "validate", () -> puzzles[0] = Puzzles.getPuzzleByNum(puzzleNum), () -> {
+			puzzles[0].validate(solver);
+			return true;
+		});
+
+		final Puzzle puzzle = puzzles[0];
+		if (puzzle.validate(solver) != 0) {
+			System.out.println("# Invalid puzzle");
+			return;
+		}
+		solver.setPuzzle(puzzle);
+
+		// Solver.reset followed by a full solve.
+		measure(puzzleNum, "solve", () -> {}, () -> {
+			solver.reset();
+			SolveRunner.run(solver.getThread(0));
+			return true;
+		});
+
+		// Solver.addMarkByUser followed by its propagation, for a pair the reset solver has not decided.
+		final Noun[] pair = findMaybePair(puzzle, solver);
+		if (pair == null) {
+			System.out.println("# No pair is Maybe after a reset");
+			return;
+		}
+		measure(puzzleNum, "userMark", solver::reset, () -> {
+			if (solver.addMarkByUser(pair[0], Puzzle.Is, pair[1]) != 0) return false;
+			SolveRunner.run(solver.getThread(1));
+			return true;
+		});
+	}
+
+	/**
+	 * Runs the benchmark for the given puzzles, or for every puzzle in the catalog.
+	 * @param args Options followed by zero or more puzzle numbers.
+	 */
+	public static void main(final String[] args) {
+		CatalogBenchmark benchmark = new CatalogBenchmark();
+		int[] puzzleNums = new int[args.length];
+		int n = 0;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-w": benchmark.warmups = Integer.parseInt(args[++i]); break;
+				case "-i": benchmark.iterations = Integer.parseInt(args[++i]); break;
+				default: puzzleNums[n++] = Integer.parseInt(args[i]); break;
+			}
+		}
+
+		if (n == 0) for (int puzzleNum = 1; puzzleNum < Puzzles.titles.length; puzzleNum++) benchmark.run(puzzleNum);
+		else for (int i = 0; i < n; i++) benchmark.run(puzzleNums[i]);
+	}
+}
@@ -6,7 +6,6 @@ import android.widget.TableLayout;
 import android.widget.TableRow;
 import android.widget.TextView;
 
-import com.mysterymaster.puzzle.Mark;
 import com.mysterymaster.puzzle.Noun;
 import com.mysterymaster.puzzle.NounType;
 import com.mysterymaster.puzzle.Puzzle;
@@ -24,6 +23,9 @@ final class ChartViewer extends BaseViewer {
 	/** One-based index of the noun type to display in the first column of the Chart form. */
 	private int chartCol1 = 1;
 
+	/** Paired nouns, updated for each positive mark. Null if there is no puzzle. */
+	private PairTable pairTable = null;
+
 	/**
 	 * Constructor. Note: The Solver object is not required, but the Solver class is.
 	 * @param activity Main Activity.
@@ -33,20 +35,46 @@ final class ChartViewer extends BaseViewer {
 		this.tblChart = tblChart;
 	}
 
+	/** True if the form is built for the puzzle. */
+	private boolean okForm = false;
+
 	/**
-	 * Updates the form when a puzzle is selected. Called by tabViewer.setPuzzle.
+	 * Updates the form when a puzzle is selected. Called by tabViewer.setPuzzle.<br>
+	 * Note: The pair table is created now, but the form is built by show.
 	 * @param puzzle Puzzle.
 	 */
 	void setPuzzle(final Puzzle puzzle) {
 		this.puzzle = puzzle;
 		chartCol1 = 1;
-		initForm();
-		update();
+		pairTable = puzzle != null ? new PairTable(puzzle) : null;
+		activity.viewPool.recycle(tblChart);
+		okForm = false;
+		okChart = false;
+	}
+
+	/**
+	 * Updates the form with the pairs of the solver after the activity is recreated. Called by tabbyViewer.attachPuzzle.
+	 * @param puzzle Puzzle, or null.
+	 * @param okLoad True if the solver can be read now, otherwise the pairs are restored from the tables sent by the worker.
+	 */
+	void attachPuzzle(final Puzzle puzzle, final boolean okLoad) {
+		setPuzzle(puzzle);
+		if (okLoad && pairTable != null) pairTable.load(puzzle);
+	}
+
+	/** Builds the form if needed, and updates it with the marks handled while it was hidden. Called by tabbyViewer.catchUp. */
+	void show() {
+		if (!okForm) {
+			initForm();
+			okForm = true;
+		}
+		okChart = true;
+		flush();
 	}
 
 	/** Initializes the form when a puzzle is loaded. Called by setPuzzle. */
 	private void initForm() {
-		tblChart.removeAllViews();
+		activity.viewPool.recycle(tblChart);
 		if (puzzle == null) return;
 
 		updateAppDimensions();
@@ -62,20 +90,18 @@ final class ChartViewer extends BaseViewer {
 		int colWidth = Math.min((appWidth - del) / ncols, colMaxWidth);
 
 		for (int irow = 0; irow < nrows; irow++) {
-			TableRow row = new TableRow(activity);
+			TableRow row = activity.viewPool.borrowRow();
 			// Setting baseline aligned to false gives single and multi-line buttons same vertical alignment!
 			row.setBaselineAligned(false);
 			TextView fld;
 			for (int icol = 0; icol < ncols; icol++) {
 				if (irow > 0) {
-					fld = new TextView(activity);
+					fld = activity.viewPool.borrowText();
 					fld.setMaxLines(1);
 					fld.setEllipsize(TextUtils.TruncateAt.END);
 				}
 				else {
-					fld = new Button(activity);
-					fld.setTextAppearance(R.style.ChartButton);
-					fld.setTransformationMethod(null);
+					fld = activity.viewPool.borrowChartButton();
 					fld.setHeight(btnHeight);
 					fld.setMinimumWidth(0);
 
@@ -96,6 +122,8 @@ final class ChartViewer extends BaseViewer {
 
 	/** Resets the Chart form. Called by tabViewer.reset. */
 	void reset() {
+		okChart = false;
+		if (pairTable != null) pairTable.clear();
 		update();
 	}
 
@@ -116,13 +144,14 @@ final class ChartViewer extends BaseViewer {
 		}
 	}
 
-	/** Updates the Chart form. Called by reset, update(mark). */
+	/** Updates the Chart form from the pair table. Called by reset, updateCol1, flush. */
 	private void update() {
-		if (puzzle == null) return;
+		if (puzzle == null || !okForm) return;
 		final int ncols = puzzle.maxNounTypes;
 		final int nrows = puzzle.maxNouns + 1;
 
 		NounType nounType1 = puzzle.getNounType(chartCol1);
+		final int t1 = chartCol1 - 1;
 		for (int irow = 0; irow < nrows; irow++) {
 			Noun noun1 = irow > 0 ? nounType1.nouns.get(irow - 1) : null;
 			TableRow row = (TableRow) tblChart.getChildAt(irow);
@@ -138,8 +167,8 @@ final class ChartViewer extends BaseViewer {
 					if (irow == 0)
 						txt.setText(nounType2.name);
 					else {
-						Noun noun2 = Mark.getPairNoun(noun1, nounType2);
-						txt.setText(noun2 != null ? noun2.title : "");
+						int num = pairTable.get(t1, irow - 1, t2);
+						txt.setText(num > 0 ? nounType2.nouns.get(num - 1).title : "");
 					}
 					++t2;
 				}
@@ -148,13 +177,70 @@ final class ChartViewer extends BaseViewer {
 	}
 
 	/**
-	 * Updates the Chart form if the given mark is either (a) positive or (b) has placers.<br>
-	 * Note: The mark may be either appended or removed.
-	 * @param mark Mark.
+	 * Updates the Chart form if the mark of the event is either (a) positive or (b) has placers.<br>
+	 * A positive mark updates the pair table. A mark with placers copies the pairs the worker sent with the event.
+	 * @param event Event with the mark.
+	 * @param okAdd True if the mark was entered, false if it was removed.
+	 */
+	void update(final Dispatcher.Event event, final boolean okAdd) {
+		boolean okPlacers = event.pairs != null;
+		if (!pairTable.update(event.noun1, event.noun2, event.verbNum, okAdd) && !okPlacers) return;
+		if (okPlacers) pairTable.copyFrom(event.pairs);
+		if (activity.spots.okRechart) chartCol1 = event.noun1.type.num;
+		okChart = true;
+	}
+
+	/**
+	 * Pairs or unpairs the nouns of a replayed mark. Called by tabbyViewer.replayAddMark, replayRemoveMark.
+	 * @param noun1 Noun 1.
+	 * @param noun2 Noun 2.
+	 * @param okPair True to pair the nouns, false to unpair them.
 	 */
-	void update(final Mark mark) {
-		if (mark.verb != Puzzle.Is && mark.rulePlacers.isEmpty()) return;
-		if (activity.spots.okRechart) chartCol1 = mark.noun1.type.num;
+	void replay(final Noun noun1, final Noun noun2, final boolean okPair) {
+		if (!okPair && pairTable.get(noun1, noun2.type) != noun2) return;
+		pairTable.set(noun1, noun2, okPair);
+		okChart = true;
+	}
+
+	/**
+	 * Copies the pairs the worker sent because a rule placed nouns. The chart is updated at the end of the frame.<br>
+	 * Called by tabbyViewer.sayPlacers.
+	 * @param event Event with the mark, and the pairs after the nouns were placed.
+	 */
+	void sayPlacers(final Dispatcher.Event event) {
+		if (event.pairs != null) pairTable.copyFrom(event.pairs);
+		if (activity.spots.okRechart) chartCol1 = event.noun1.type.num;
+		okChart = true;
+	}
+
+	/** True if the chart needs to be updated at the end of the frame. */
+	private boolean okChart = false;
+
+	/** Updates the chart once for all the marks handled during the frame. Called by tabbyViewer.flush. */
+	void flush() {
+		if (!okChart) return;
+		okChart = false;
 		update();
 	}
+
+	/**
+	 * Returns a copy of the pair table, or null if there is no puzzle. Called by tabbyViewer.takeSnapshot.
+	 * @return Pairs given by pairTable.copyTo, or null.
+	 */
+	byte[] copyPairs() {
+		if (pairTable == null) return null;
+		byte[] pairs = new byte[pairTable.size()];
+		pairTable.copyTo(pairs);
+		return pairs;
+	}
+
+	/**
+	 * Shows the pairs of a snapshot, or the pairs sent by the worker. The chart is updated at the end of the frame.<br>
+	 * Called by tabbyViewer.restoreSnapshot, sayTables.
+	 * @param pairs Pairs given by copyPairs.
+	 */
+	void restorePairs(final byte[] pairs) {
+		pairTable.copyFrom(pairs);
+		okChart = true;
+	}
 }
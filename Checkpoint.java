@@ -0,0 +1,116 @@
+package com.mysterymaster.androidapp;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The Checkpoint records where a paused solve stopped, so it can be restored after Android kills the process.<br>
+ * The solver is deterministic for a puzzle and the setup options that change its marks, so the checkpoint only
+ * needs the puzzle number, the key of the solution cache, and the number of events sent before the pause.
+ * A restore runs the solver to that event without displaying anything, then rebuilds the forms once from the tables the worker sends.<br>
+ * Nothing guarantees the solver makes the same marks after an update, so the checkpoint also keeps the fingerprint
+ * of the rows of the Marks form. A restore whose rows differ is abandoned instead of displayed.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class Checkpoint {
+	/** Version of the file format. A file with another version is ignored. */
+	private static final int VERSION = 1;
+
+	/** Thread that saves and deletes the checkpoint file, in the order they are requested. Shared by all holders, and never stopped. */
+	private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "checkpoint");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** One-based number of the puzzle. */
+	final int puzzleNum;
+
+	/** Key of the puzzle with the setup options, as given by SolutionCache.getKey. */
+	final String key;
+
+	/** Number of events sent by the solver up to and including the event it paused on. */
+	final int numEvents;
+
+	/** Fingerprint of the rows of the Marks form at the pause, as given by markRows.getFingerprint. */
+	final long rowsFingerprint;
+
+	/**
+	 * Constructor.
+	 * @param puzzleNum One-based number of the puzzle.
+	 * @param key Key of the puzzle with the setup options.
+	 * @param numEvents Number of events sent by the solver up to and including the pause.
+	 * @param rowsFingerprint Fingerprint of the rows of the Marks form at the pause.
+	 */
+	Checkpoint(final int puzzleNum, final String key, final int numEvents, final long rowsFingerprint) {
+		this.puzzleNum = puzzleNum;
+		this.key = key;
+		this.numEvents = numEvents;
+		this.rowsFingerprint = rowsFingerprint;
+	}
+
+	/**
+	 * Returns the checkpoint saved in the file, or null.
+	 * @param file File.
+	 * @return Checkpoint, or null.
+	 */
+	static Checkpoint load(final File file) {
+		if (!file.isFile()) return null;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			if (in.readInt() != VERSION) return null;
+			return new Checkpoint(in.readInt(), in.readUTF(), in.readInt(), in.readLong());
+		}
+		catch (IOException e) {
+			BaseViewer.print("checkpoint.load " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Saves the checkpoint for the rows on the checkpoint thread, which also computes the fingerprint of the rows.
+	 * @param file File.
+	 * @param puzzleNum One-based number of the puzzle.
+	 * @param key Key of the puzzle with the setup options.
+	 * @param numEvents Number of events sent by the solver up to and including the pause.
+	 * @param rows Copy of the rows of the Marks form at the pause, which is not used by anything else.
+	 */
+	static void save(final File file, final int puzzleNum, final String key, final int numEvents, final MarkRows rows) {
+		writer.execute(() -> new Checkpoint(puzzleNum, key, numEvents, rows.getFingerprint()).save(file));
+	}
+
+	/**
+	 * Deletes the file on the checkpoint thread.
+	 * @param file File.
+	 */
+	static void delete(final File file) {
+		writer.execute(file::delete);
+	}
+
+	/**
+	 * Saves the checkpoint in the file. Called on the checkpoint thread.
+	 * @param file File.
+	 */
+	private void save(final File file) {
+		File tmp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+			out.writeInt(VERSION);
+			out.writeInt(puzzleNum);
+			out.writeUTF(key);
+			out.writeInt(numEvents);
+			out.writeLong(rowsFingerprint);
+		}
+		catch (IOException e) {
+			BaseViewer.print("checkpoint.save " + e);
+			return;
+		}
+		if (!tmp.renameTo(file)) tmp.delete();
+	}
+}
@@ -0,0 +1,199 @@
+package com.mysterymaster.androidapp;
+
+import android.view.Choreographer;
+
+import com.mysterymaster.puzzle.Mark;
+import com.mysterymaster.puzzle.Noun;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Dispatcher queues the events sent by the solver on the worker thread,
+ * and hands them to the Main Activity once per display frame.<br>
+ * While the activity is recreated, the events stay queued until the new activity is attached.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class Dispatcher implements Choreographer.FrameCallback {
+	// Kinds of events. There is one kind for each "say" method of the IViewer interface.
+	static final int STARTED = 0;
+	static final int STOPPED = 1;
+	static final int LEVEL = 2;
+	static final int SOLUTION = 3;
+	static final int ADD_MARK = 4;
+	static final int REMOVE_MARK = 5;
+	static final int VALID_MARK = 6;
+	static final int CONTRADICTION = 7;
+	static final int FACT_VIOLATION = 8;
+	static final int RULE_VIOLATION = 9;
+	static final int LAW_VIOLATION = 10;
+	static final int PLACERS = 11;
+
+	/** Kind of event sent when the solver reaches a restored checkpoint. It is not sent by the solver. */
+	static final int RESTORED = 12;
+
+	/** Kind of event sent when the user's mark is undone and the forms can be restored from their snapshot. It is not sent by the solver. */
+	static final int UNDONE = 13;
+
+	/** Kind of event sent when a recreated activity needs the grids and the chart of the solver that is still running. It is not sent by the solver. */
+	static final int SYNC = 14;
+
+	/**
+	 * Event sent by the solver. The fields that do not apply to the kind of event are zero or null.<br>
+	 * The fields of the mark are copied when the event is created on the worker thread, since the solver
+	 * keeps changing the mark, the facts, and the rules after the event is queued.
+	 */
+	static final class Event {
+		final int kind;
+		final String msg;
+		/** True if the solver waits for the user to resume after this event. */
+		final boolean okPause;
+
+		/** One-based number of the mark, or zero. */
+		final int markNum;
+		final Noun noun1;
+		final Noun noun2;
+		/** Number of the verb of the mark. */
+		final int verbNum;
+		final boolean valid;
+		final String level;
+		final String type;
+		final String name;
+
+		/** Number of the verb the grids show for the nouns of the mark after the event, as given by solver.getGridVerb. */
+		final int gridVerbNum;
+
+		/** Pairs of the chart after the event as given by pairTable.copyTo, or null if the pairs are not needed. */
+		final byte[] pairs;
+
+		/** Cells of the grids after the event as given by verbMatrix.copyTo, or null if the cells are not needed. */
+		final byte[] verbs;
+
+		/**
+		 * Constructor for an event without a mark.
+		 * @param kind Kind of event.
+		 * @param msg Message, or null.
+		 * @param okPause True if the solver waits for the user to resume after this event.
+		 */
+		Event(final int kind, final String msg, final boolean okPause) {
+			this(kind, msg, okPause, null, 0, null, null);
+		}
+
+		/**
+		 * Constructor. Must be called on the thread that owns the solver.
+		 * @param kind Kind of event.
+		 * @param msg Message, or null.
+		 * @param okPause True if the solver waits for the user to resume after this event.
+		 * @param mark Mark, or null.
+		 * @param gridVerbNum Number of the verb the grids show for the nouns of the mark.
+		 * @param pairs Pairs of the chart, or null.
+		 * @param verbs Cells of the grids, or null.
+		 */
+		Event(final int kind, final String msg, final boolean okPause, final Mark mark, final int gridVerbNum,
+				final byte[] pairs, final byte[] verbs) {
+			this.kind = kind;
+			this.msg = msg;
+			this.okPause = okPause;
+			this.gridVerbNum = gridVerbNum;
+			this.pairs = pairs;
+			this.verbs = verbs;
+			if (mark == null) {
+				markNum = 0;
+				noun1 = null;
+				noun2 = null;
+				verbNum = 0;
+				valid = false;
+				level = null;
+				type = null;
+				name = null;
+				return;
+			}
+			markNum = mark.num;
+			noun1 = mark.noun1;
+			noun2 = mark.noun2;
+			verbNum = mark.verb.num;
+			valid = mark.valid;
+			level = mark.levelAsString;
+			type = mark.type.toString();
+			name = mark.name;
+		}
+	}
+
+	/** Main Activity of the android application, or null while it is recreated. Used on the UI thread only. */
+	private MainActivity activity;
+
+	/** Choreographer of the UI thread. Its postFrameCallback method may be called from any thread. */
+	private final Choreographer choreographer;
+
+	/** Events waiting for the next frame. */
+	private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+
+	/** Number of events in the queue. Incremented after an event is added to the queue. */
+	private final AtomicInteger numEvents = new AtomicInteger();
+
+	/** True if a frame callback is pending. */
+	private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+	/**
+	 * Constructor. Must be called on the UI thread.
+	 * @param activity Main Activity.
+	 */
+	Dispatcher(final MainActivity activity) {
+		this.activity = activity;
+		this.choreographer = Choreographer.getInstance();
+	}
+
+	/**
+	 * Attaches the recreated activity, and requests a frame callback if events are queued.<br>
+	 * Called by solverHolder.attach on the UI thread.
+	 * @param activity Main Activity.
+	 */
+	void attach(final MainActivity activity) {
+		this.activity = activity;
+		if (numEvents.get() > 0 && isScheduled.compareAndSet(false, true)) choreographer.postFrameCallback(this);
+	}
+
+	/** Detaches the activity, so the events are kept until a new activity is attached. Called by solverHolder.detach. */
+	void detach() {
+		activity = null;
+	}
+
+	/** Handles the queued events now, so the forms are up to date. Called by solverHolder.drain on the UI thread. */
+	void drain() {
+		if (numEvents.get() > 0) doFrame(System.nanoTime());
+	}
+
+	/**
+	 * Queues the event, and requests a frame callback if one is not pending.<br>
+	 * Called by the IViewer methods of the solver holder, usually on the worker thread.
+	 * @param event Event.
+	 */
+	void post(final Event event) {
+		events.add(event);
+		numEvents.incrementAndGet();
+		if (isScheduled.compareAndSet(false, true)) choreographer.postFrameCallback(this);
+	}
+
+	/**
+	 * Sends the events queued before this frame to the activity, then lets the viewers repaint once.<br>
+	 * Events queued while the frame is being handled are left for the next frame, so the UI is never
+	 * more than one frame behind the worker.
+	 * @param frameTimeNanos Time the frame started rendering.
+	 */
+	@Override
+	public void doFrame(final long frameTimeNanos) {
+		isScheduled.set(false);
+		if (activity == null) return;
+		int n = numEvents.getAndSet(0);
+		for (int i = 0; i < n; i++) {
+			Event event = events.poll();
+			if (event == null) break;
+			activity.sayEvent(event);
+		}
+		activity.flush();
+		if (numEvents.get() > 0 && isScheduled.compareAndSet(false, true)) choreographer.postFrameCallback(this);
+	}
+}
@@ -20,15 +20,26 @@ import java.util.List;
 
  */
 public final class FactsAdapter extends RecyclerView.Adapter<FactsAdapter.ViewHolder> {
+	/** Payload when only the hits of a fact changed. */
+	static final String PAYLOAD_HITS = "hits";
+
+	/** Payload when only the enabled flag of a fact changed. */
+	static final String PAYLOAD_ENABLED = "enabled";
+
 	/** List of facts. */
 	private final List<Fact> facts;
 
+	/** Facts Viewer that keeps the hits and enabled flags on display, since the solver changes the facts while it works. */
+	private final FactsViewer factsViewer;
+
 	/**
 	 * Constructor.
 	 * @param facts List of facts.
+	 * @param factsViewer Facts Viewer.
 	 */
-	FactsAdapter(final List<Fact> facts) {
+	FactsAdapter(final List<Fact> facts, final FactsViewer factsViewer) {
 		this.facts = facts;
+		this.factsViewer = factsViewer;
 	}
 
 	// Inflates a layout from XML and returns the holder.
@@ -49,11 +60,26 @@ public final class FactsAdapter extends RecyclerView.Adapter<FactsAdapter.ViewHo
 	public void onBindViewHolder(FactsAdapter.ViewHolder holder, final int position) {
 		Fact fact = facts.get(position);
 		BaseViewer.setText(holder.txtFactNum, fact.num);
-		holder.chkFactEnabled.setChecked(fact.enabled);
-		BaseViewer.setText(holder.txtFactHits, fact.hits);
+		holder.chkFactEnabled.setChecked(factsViewer.isEnabled(position));
+		BaseViewer.setText(holder.txtFactHits, factsViewer.getHits(position));
 		holder.txtFactName.setText(fact.name);
 	}
 
+	// Updates only the fields given by the payloads, or the whole item if there are no payloads.
+	@Override
+	public void onBindViewHolder(FactsAdapter.ViewHolder holder, final int position, final List<Object> payloads) {
+		if (payloads.isEmpty()) {
+			onBindViewHolder(holder, position);
+			return;
+		}
+		for (Object payload : payloads) {
+			if (PAYLOAD_HITS.equals(payload))
+				BaseViewer.setText(holder.txtFactHits, factsViewer.getHits(position));
+			else if (PAYLOAD_ENABLED.equals(payload))
+				holder.chkFactEnabled.setChecked(factsViewer.isEnabled(position));
+		}
+	}
+
 	/** Returns the size of the dataset (invoked by the layout manager). */
 	@Override
 	public int getItemCount() {
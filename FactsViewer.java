@@ -4,7 +4,6 @@ import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 
 import com.mysterymaster.puzzle.Fact;
-import com.mysterymaster.puzzle.Mark;
 import com.mysterymaster.puzzle.Puzzle;
 
 import java.util.ArrayList;
@@ -35,7 +34,7 @@ final class FactsViewer extends BaseViewer {
 		tblFacts = activity.findViewById(R.id.tblFacts);
 
 		// Create adapter and pass the dataset.
-		factsAdapter = new FactsAdapter(facts);
+		factsAdapter = new FactsAdapter(facts, this);
 		tblFacts.setAdapter(factsAdapter);
 
 		// Set the layout manager.
@@ -51,37 +50,75 @@ final class FactsViewer extends BaseViewer {
 		this.puzzle = puzzle;
 		facts.clear();
 		if (puzzle != null) facts.addAll(puzzle.facts);
-		update();
+		shownHits = new int[facts.size()];
+		shownEnabled = new boolean[facts.size()];
+		shownCounters = null;
+		update(activity.holder.forms, false);
+		scrollPos = -1;
+		factsAdapter.notifyDataSetChanged();
 	}
 
-	/** Resets the form. Called by tabbyViewer.reset. */
-	void reset() {
-		update();
+	/** Hits displayed for each fact, where hits = shownHits[fact.num - 1]. */
+	private int[] shownHits = new int[0];
+
+	/** Enabled flag displayed for each fact, where enabled = shownEnabled[fact.num - 1]. */
+	private boolean[] shownEnabled = new boolean[0];
+
+	/** Counters displayed by the form, or null. */
+	private FormCounters shownCounters = null;
+
+	/**
+	 * Returns the hits displayed for the fact. Called by factsAdapter.onBindViewHolder.
+	 * @param pos Zero-based position of the fact.
+	 * @return Hits.
+	 */
+	int getHits(final int pos) {
+		return shownHits[pos];
 	}
 
-	/** Updates the form. Called by setPuzzle, reset. */
-	private void update() {
-		factsAdapter.notifyDataSetChanged();
+	/**
+	 * Returns the enabled flag displayed for the fact. Called by factsAdapter.onBindViewHolder.
+	 * @param pos Zero-based position of the fact.
+	 * @return Enabled flag.
+	 */
+	boolean isEnabled(final int pos) {
+		return shownEnabled[pos];
 	}
 
 	/**
-	 * Updates the form when the mark is appended. Called by tabViewer.sayAddMark.
-	 * @param mark Mark.
+	 * Copies the hits and enabled flags of the facts that changed since the counters displayed.
+	 * @param counters Latest counters of the solver holder.
+	 * @param okNotify True if the adapter is told about each fact that changed, otherwise false.
 	 */
-	void update(final Mark mark) {
-		for (Fact fact : mark.facts) update(fact);
-		for (Fact fact : mark.disabledFacts) update(fact);
+	private void update(final FormCounters counters, final boolean okNotify) {
+		if (counters == shownCounters || counters.factHits.length != shownHits.length) return;
+		shownCounters = counters;
+		for (int pos = 0; pos < shownHits.length; pos++) {
+			if (shownHits[pos] != counters.factHits[pos]) {
+				shownHits[pos] = counters.factHits[pos];
+				if (okNotify) factsAdapter.notifyItemChanged(pos, FactsAdapter.PAYLOAD_HITS);
+				scrollPos = pos;
+			}
+			if (shownEnabled[pos] != counters.factEnabled[pos]) {
+				shownEnabled[pos] = counters.factEnabled[pos];
+				if (okNotify) factsAdapter.notifyItemChanged(pos, FactsAdapter.PAYLOAD_ENABLED);
+				scrollPos = pos;
+			}
+		}
 	}
 
+	/** Position of the last fact updated during the frame, or -1. */
+	private int scrollPos = -1;
+
 	/**
-	 * Updates the Facts form for the fact.
-	 * @param fact Fact.
+	 * Updates the facts that changed in the counters published since the last frame, and scrolls to the last one.<br>
+	 * Called by tabbyViewer.catchUp, flush.
+	 * @param counters Latest counters of the solver holder.
 	 */
-	void update(final Fact fact) {
-		int pos = fact.num - 1;
-		facts.set(pos, fact);
-		factsAdapter.notifyItemChanged(pos);
-		tblFacts.scrollToPosition(pos);
-		factsAdapter.notifyDataSetChanged();
+	void flush(final FormCounters counters) {
+		update(counters, true);
+		if (scrollPos < 0) return;
+		tblFacts.scrollToPosition(scrollPos);
+		scrollPos = -1;
 	}
 }
@@ -0,0 +1,94 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Fact;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzle.Rule;
+import com.mysterymaster.solver.LevelCounter;
+import com.mysterymaster.solver.Solver;
+
+/**
+ * The Form Counters class is an immutable snapshot of the solver data shown in the Facts, Rules, and Stats forms.<br>
+ * A snapshot is taken with the board counters, so those forms never read the solver while it is working.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class FormCounters {
+	/** Hits of each fact, where hits = factHits[fact.num - 1]. */
+	final int[] factHits;
+
+	/** Enabled flag of each fact, where enabled = factEnabled[fact.num - 1]. */
+	final boolean[] factEnabled;
+
+	/** Hits of each rule, where hits = ruleHits[rule.num - 1]. */
+	final int[] ruleHits;
+
+	/** Enabled flag of each rule, where enabled = ruleEnabled[rule.num - 1]. */
+	final boolean[] ruleEnabled;
+
+	/** Pairs by level, where counts = levelPairs[level]. */
+	final int[][] levelPairs;
+
+	/** Marks by level, where counts = levelMarks[level]. */
+	final int[][] levelMarks;
+
+	/**
+	 * Constructor. Copies the counters of the facts, the rules, and the solver statistics.
+	 * @param puzzle Puzzle, or null.
+	 * @param solver Solver.
+	 */
+	FormCounters(final Puzzle puzzle, final Solver solver) {
+		int nfacts = puzzle != null ? puzzle.facts.size() : 0;
+		factHits = new int[nfacts];
+		factEnabled = new boolean[nfacts];
+		if (puzzle != null) {
+			for (Fact fact : puzzle.facts) {
+				factHits[fact.num - 1] = fact.hits;
+				factEnabled[fact.num - 1] = fact.enabled;
+			}
+		}
+
+		int nrules = puzzle != null ? puzzle.rules.size() : 0;
+		ruleHits = new int[nrules];
+		ruleEnabled = new boolean[nrules];
+		if (puzzle != null) {
+			for (Rule rule : puzzle.rules) {
+				ruleHits[rule.num - 1] = rule.hits;
+				ruleEnabled[rule.num - 1] = rule.enabled;
+			}
+		}
+
+		levelPairs = getCounts(solver.stats.levelPairs);
+		levelMarks = getCounts(solver.stats.levelMarks);
+	}
+
+	/**
+	 * Constructor for the counters saved with a solution. The arrays are kept, not copied. Called by SolutionCache.read.
+	 * @param factHits Hits of each fact.
+	 * @param factEnabled Enabled flag of each fact.
+	 * @param ruleHits Hits of each rule.
+	 * @param ruleEnabled Enabled flag of each rule.
+	 * @param levelPairs Pairs by level.
+	 * @param levelMarks Marks by level.
+	 */
+	FormCounters(final int[] factHits, final boolean[] factEnabled, final int[] ruleHits, final boolean[] ruleEnabled,
+			final int[][] levelPairs, final int[][] levelMarks) {
+		this.factHits = factHits;
+		this.factEnabled = factEnabled;
+		this.ruleHits = ruleHits;
+		this.ruleEnabled = ruleEnabled;
+		this.levelPairs = levelPairs;
+		this.levelMarks = levelMarks;
+	}
+
+	/**
+	 * Returns a copy of the counts of the level counters.
+	 * @param levelCounters Level counters.
+	 * @return Counts, where counts[i] = levelCounters[i].getCounts().
+	 */
+	private static int[][] getCounts(final LevelCounter[] levelCounters) {
+		int[][] counts = new int[levelCounters.length][];
+		for (int i = 0; i < levelCounters.length; i++) counts[i] = levelCounters[i].getCounts().clone();
+		return counts;
+	}
+}
@@ -0,0 +1,321 @@
+package com.mysterymaster.androidapp;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.mysterymaster.puzzle.Noun;
+import com.mysterymaster.puzzle.NounType;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzle.Verb;
+
+import java.util.List;
+
+/**
+ * The Grids Canvas is a single view that draws every grid of the Grids form.<br>
+ * If m is the number of noun types and n is the number of nouns per type, the grids are arranged in
+ * m - 1 rows of grids. Grid row 0 is for noun type 0, and grid row r > 0 is for noun type m - r.<br>
+ * The noun of the row type is down the side, and the noun of the column type is across the top.<br>
+ * Note: With hardware acceleration, every invalidate records the whole view again, so a changed cell costs
+ * one pass over all the cells. The grids viewer changes the cells for all the marks of a frame before the view
+ * is drawn, so the pass is made at most once per frame. Cells outside the clip are skipped only in software rendering.<br>
+ * Note: The view is wider than the screen, so it must be placed in a horizontal scroll view, which measures it at its own width.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class GridsCanvas extends View {
+	/** Width in pixels of column 0, which has the row nouns. */
+	private static final int COL0_WIDTH = 200;
+
+	/** Height in pixels of the row with the column type names. */
+	private static final int ROW0_HEIGHT = 60;
+
+	/** Height in pixels of the row with the column noun names. */
+	private static final int ROW1_HEIGHT = 300;
+
+	/** Height in pixels of the row with the type name above each grid row. */
+	private static final int TYPE_HEIGHT = 60;
+
+	/** Width and height in pixels of a cell. */
+	private static final int CELL_SIZE = 64;
+
+	/** Gap in pixels between two grids. */
+	private static final int GRID_GAP = 16;
+
+	/** Grids viewer that handles the clicks. */
+	private final GridsViewer gridsViewer;
+
+	private final Paint borderPaint = new Paint();
+	private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+	private final TextPaint boldPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+	private final TextPaint cellPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+	/** Puzzle object. */
+	private Puzzle puzzle = null;
+
+	/** Number of noun types. */
+	private int m = 0;
+
+	/** Number of nouns per type. */
+	private int n = 0;
+
+	/** Verb number for each pair of nouns. */
+	private VerbMatrix verbMatrix = null;
+
+	/** Verbs given by their number, where verb = verbsByNum[verb.num]. */
+	private Verb[] verbsByNum;
+
+	/** Text color of the cells given by the verb number, as given by BaseViewer.getTextColor. */
+	private int[] colorsByNum;
+
+	/** Point of the last touch that ended in a click, or -1 if there is none. See performClick. */
+	private int clickX = -1;
+	private int clickY = -1;
+
+	/** Noun titles shortened to fit the width of column 0, where title = rowTitles[t][n]. */
+	private String[][] rowTitles;
+
+	/** Noun titles shortened to fit the height of row 1, where title = colTitles[t][n]. */
+	private String[][] colTitles;
+
+	/**
+	 * Constructor.
+	 * @param activity Main Activity.
+	 * @param gridsViewer Grids viewer that handles the clicks.
+	 */
+	GridsCanvas(final MainActivity activity, final GridsViewer gridsViewer) {
+		super(activity);
+		this.gridsViewer = gridsViewer;
+
+		float textSize = 14 * activity.getResources().getDisplayMetrics().scaledDensity;
+
+		borderPaint.setColor(Color.GRAY);
+		borderPaint.setStrokeWidth(1f);
+		borderPaint.setStyle(Paint.Style.STROKE);
+
+		textPaint.setColor(Color.BLACK);
+		textPaint.setTextSize(textSize);
+
+		boldPaint.setColor(Color.BLACK);
+		boldPaint.setTextSize(textSize);
+		boldPaint.setTypeface(Typeface.DEFAULT_BOLD);
+
+		cellPaint.setTextSize(textSize);
+		cellPaint.setTextAlign(Paint.Align.CENTER);
+	}
+
+	/**
+	 * Sets the puzzle and the verb matrix to draw. Called by gridsViewer.initForm.
+	 * @param puzzle Puzzle.
+	 * @param verbMatrix Verb matrix.
+	 */
+	void setPuzzle(final Puzzle puzzle, final VerbMatrix verbMatrix) {
+		this.puzzle = puzzle;
+		this.verbMatrix = verbMatrix;
+		Verb[] verbs = {Puzzle.IsNot, Puzzle.Is, Puzzle.Maybe};
+		int maxNum = 0;
+		for (Verb verb : verbs) maxNum = Math.max(maxNum, verb.num);
+		verbsByNum = new Verb[maxNum + 1];
+		colorsByNum = new int[maxNum + 1];
+		for (Verb verb : verbs) {
+			verbsByNum[verb.num] = verb;
+			colorsByNum[verb.num] = BaseViewer.getTextColor(verb);
+		}
+		m = puzzle.maxNounTypes;
+		n = puzzle.maxNouns;
+
+		rowTitles = new String[m][n];
+		colTitles = new String[m][n];
+		for (int t = 0; t < m; t++) {
+			NounType nounType = puzzle.nounTypes.get(t);
+			for (int i = 0; i < n; i++) {
+				String title = nounType.nouns.get(i).title;
+				rowTitles[t][i] = TextUtils.ellipsize(title, textPaint, COL0_WIDTH - 8, TextUtils.TruncateAt.END).toString();
+				colTitles[t][i] = TextUtils.ellipsize(title, textPaint, ROW1_HEIGHT - 8, TextUtils.TruncateAt.END).toString();
+			}
+		}
+
+		requestLayout();
+		invalidate();
+	}
+
+	/**
+	 * Sets every cell to the given verb. Called by gridsViewer.update.
+	 * @param verb Verb.
+	 */
+	void fill(final Verb verb) {
+		verbMatrix.fill(verb);
+		invalidate();
+	}
+
+	/**
+	 * Copies every cell from the given array, and redraws the grids once. Called by gridsViewer.restoreVerbs.
+	 * @param verbs Cells given by verbMatrix.copyTo.
+	 */
+	void copyFrom(final byte[] verbs) {
+		verbMatrix.copyFrom(verbs);
+		invalidate();
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Cells">
+
+	/**
+	 * Sets the verb for the pair of nouns, and requests a redraw if the verb changed.
+	 * @param noun1 Noun 1.
+	 * @param noun2 Noun 2.
+	 * @param verb Verb.
+	 */
+	void setVerb(final Noun noun1, final Noun noun2, final Verb verb) {
+		if (verbMatrix.set(noun1, noun2, verb)) invalidate();
+	}
+
+	/** Returns the noun type of the rows in grid row r. */
+	private int getRowType(final int r) {
+		return r == 0 ? 0 : m - r;
+	}
+
+	/** Returns the number of grids in grid row r. */
+	private int getNumGrids(final int r) {
+		return r == 0 ? m - 1 : m - r - 1;
+	}
+
+	/** Returns the left edge of the cell in grid column c for column noun k. */
+	private int getCellX(final int c, final int k) {
+		return COL0_WIDTH + c * (n * CELL_SIZE + GRID_GAP) + k * CELL_SIZE;
+	}
+
+	/** Returns the top edge of the cell in grid row r for row noun j. */
+	private int getCellY(final int r, final int j) {
+		return ROW0_HEIGHT + ROW1_HEIGHT + r * (TYPE_HEIGHT + n * CELL_SIZE) + TYPE_HEIGHT + j * CELL_SIZE;
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="View">
+
+	@Override
+	protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+		int width = 0;
+		int height = 0;
+		if (puzzle != null) {
+			width = getCellX(m - 2, n) + 1;
+			height = getCellY(m - 2, n) + 1;
+		}
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onDraw(final Canvas canvas) {
+		if (puzzle == null) return;
+		List<NounType> nounTypes = puzzle.nounTypes;
+		float ascent = textPaint.ascent();
+
+		// Column headers: the type name above each grid, and the vertical noun names.
+		for (int c = 0; c < m - 1; c++) {
+			int x = getCellX(c, 0);
+			if (!canvas.quickReject(x, 0, x + n * CELL_SIZE, ROW0_HEIGHT + ROW1_HEIGHT, Canvas.EdgeType.BW)) {
+				String name = nounTypes.get(c + 1).name;
+				canvas.drawText(name, 0, name.length(), x + 4, 8 - ascent, boldPaint);
+				for (int k = 0; k < n; k++) {
+					float cx = getCellX(c, k) + (CELL_SIZE - ascent) / 2;
+					float cy = ROW0_HEIGHT + ROW1_HEIGHT - 4;
+					canvas.save();
+					canvas.rotate(-90, cx, cy);
+					canvas.drawText(colTitles[c + 1][k], cx, cy, textPaint);
+					canvas.restore();
+				}
+			}
+		}
+
+		for (int r = 0; r < m - 1; r++) {
+			int rowType = getRowType(r);
+			int y0 = getCellY(r, 0);
+			if (canvas.quickReject(0, y0 - TYPE_HEIGHT, getCellX(m - 2, n), y0 + n * CELL_SIZE, Canvas.EdgeType.BW)) continue;
+
+			// Row headers: the type name above the grid row, and the row noun names.
+			String name = nounTypes.get(rowType).name;
+			canvas.drawText(name, 0, name.length(), 4, y0 - TYPE_HEIGHT + 8 - ascent, boldPaint);
+			for (int j = 0; j < n; j++) {
+				canvas.drawText(rowTitles[rowType][j], 4, getCellY(r, j) + (CELL_SIZE - ascent) / 2, textPaint);
+			}
+
+			// Cells.
+			int numGrids = getNumGrids(r);
+			for (int c = 0; c < numGrids; c++) {
+				int colType = c + 1;
+				for (int j = 0; j < n; j++) {
+					int y = getCellY(r, j);
+					for (int k = 0; k < n; k++) {
+						int x = getCellX(c, k);
+						if (canvas.quickReject(x, y, x + CELL_SIZE, y + CELL_SIZE, Canvas.EdgeType.BW)) continue;
+						Verb verb = verbsByNum[verbMatrix.get(rowType, j, colType, k)];
+						canvas.drawRect(x, y, x + CELL_SIZE, y + CELL_SIZE, borderPaint);
+						cellPaint.setColor(colorsByNum[verb.num]);
+						canvas.drawText(verb.code, 0, verb.code.length(), x + CELL_SIZE / 2f, y + (CELL_SIZE - ascent) / 2, cellPaint);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean onTouchEvent(final MotionEvent event) {
+		if (puzzle == null) return false;
+		switch (event.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				return true;
+			case MotionEvent.ACTION_UP:
+				clickX = (int) event.getX();
+				clickY = (int) event.getY();
+				performClick();
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sends the click to the accessibility services and the click listener, then handles the cell that was touched.<br>
+	 * A click that does not come from a touch, such as one from an accessibility service, has no cell.
+	 */
+	@Override
+	public boolean performClick() {
+		super.performClick();
+		if (clickX >= 0 && clickY >= 0) onClick(clickX, clickY);
+		clickX = -1;
+		clickY = -1;
+		return true;
+	}
+
+	/**
+	 * Maps the point to a cell, and passes the pair of nouns to the grids viewer.
+	 * @param x X coordinate in pixels.
+	 * @param y Y coordinate in pixels.
+	 */
+	private void onClick(final int x, final int y) {
+		int bx = x - COL0_WIDTH;
+		int by = y - ROW0_HEIGHT - ROW1_HEIGHT;
+		if (bx < 0 || by < 0) return;
+
+		int gridWidth = n * CELL_SIZE + GRID_GAP;
+		int c = bx / gridWidth;
+		int k = (bx - c * gridWidth) / CELL_SIZE;
+
+		int gridHeight = TYPE_HEIGHT + n * CELL_SIZE;
+		int r = by / gridHeight;
+		int dy = by - r * gridHeight - TYPE_HEIGHT;
+		if (k >= n || dy < 0 || r >= m - 1 || c >= getNumGrids(r)) return;
+		int j = dy / CELL_SIZE;
+
+		Noun noun1 = puzzle.nounTypes.get(getRowType(r)).nouns.get(j);
+		Noun noun2 = puzzle.nounTypes.get(c + 1).nouns.get(k);
+		gridsViewer.onClickGridCell(noun1, noun2);
+	}
+
+	// </editor-fold>
+}
@@ -0,0 +1,111 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Fact;
+import com.mysterymaster.puzzle.Mark;
+import com.mysterymaster.puzzle.Rule;
+import com.mysterymaster.solver.IViewer;
+
+import java.io.PrintStream;
+
+/**
+ * The Headless Viewer implements the IViewer interface without a UI, so the solver can run on any JVM.<br>
+ * The solver waits after each event until its thread is interrupted, so every event resumes it at once.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class HeadlessViewer implements IViewer {
+	/** Output for the messages, or null to ignore them. */
+	private final PrintStream out;
+
+	/** Constructor for a viewer that ignores all messages. */
+	HeadlessViewer() {
+		this(null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param out Output for the messages, or null to ignore them.
+	 */
+	HeadlessViewer(final PrintStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Prints the message if there is an output, then resumes the solver.
+	 * @param msg Message.
+	 */
+	private void say(final String msg) {
+		if (out != null && msg != null) out.println(msg);
+		Thread.currentThread().interrupt();
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="IViewer">
+
+	@Override
+	public void jot(final String msg) {
+		if (out != null) out.println(msg);
+	}
+
+	@Override
+	public void sayStarted(final String msg) {
+		say(msg);
+	}
+
+	@Override
+	public void sayStopped(final String msg) {
+		say(msg);
+	}
+
+	@Override
+	public void sayLevel(final String msg) {
+		say(msg);
+	}
+
+	@Override
+	public void saySolution(final String msg) {
+		say(msg);
+	}
+
+	@Override
+	public void sayAddMark(final String msg, final Mark mark) {
+		say(msg);
+	}
+
+	@Override
+	public void sayRemoveMark(final String msg, final Mark mark) {
+		say(msg);
+	}
+
+	@Override
+	public void sayValidMark(final String msg, final Mark mark) {
+		say(msg);
+	}
+
+	@Override
+	public void sayContradiction(final String msg) {
+		say(msg);
+	}
+
+	@Override
+	public void sayFactViolation(final String msg, final Mark mark, final Fact fact) {
+		say(msg);
+	}
+
+	@Override
+	public void sayRuleViolation(final String msg, final Mark mark, final Rule rule) {
+		say(msg);
+	}
+
+	@Override
+	public void sayLawViolation(final String msg, final Mark mark) {
+		say(msg);
+	}
+
+	@Override
+	public void sayPlacers(final String msg, final Mark mark, final Rule rule) {
+		say(msg);
+	}
+
+	// </editor-fold>
+}
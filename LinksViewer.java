@@ -55,8 +55,8 @@ final class LinksViewer extends BaseViewer {
 	void setPuzzle(final Puzzle puzzle) {
 		this.puzzle = puzzle;
 
-		tblLinks.removeAllViews();
-		tblLinkGrid.removeAllViews();
+		activity.viewPool.recycle(tblLinks);
+		activity.viewPool.recycle(tblLinkGrid);
 		link = null;
 		if (puzzle == null) return;
 
@@ -77,14 +77,13 @@ final class LinksViewer extends BaseViewer {
 		final int nrows = puzzle.maxLinks + 1;
 
 		for (int irow = 0; irow < nrows; irow++) {
-			TableRow row = new TableRow(activity);
+			TableRow row = activity.viewPool.borrowRow();
 			for (int icol = 0; icol < ncols; icol++) {
 				TextView fld; // Note: TextView is an ancestor of CheckBox.
 				if (irow > 0) {
 					Link link = puzzle.links.get(irow - 1);
 					if (icol < 3) {
-						fld = new TextView(activity);
-						if (icol == 0) fld.setTextAppearance(R.style.TableHeader);
+						fld = icol == 0 ? activity.viewPool.borrowHeader() : activity.viewPool.borrowText();
 						switch (icol) {
 							case 0 : setText(fld, link.num); break;
 							case 1 : fld.setText(link.nounType.name); break;
@@ -98,15 +97,14 @@ final class LinksViewer extends BaseViewer {
 						}
 					}
 					else {
-						CheckBox chk = new CheckBox(activity);
+						CheckBox chk = activity.viewPool.borrowCheck();
 						chk.setClickable(false);
 						chk.setChecked(link.oneToOne);
 						fld = chk;
 					}
 				}
 				else {
-					fld = new TextView(activity);
-					fld.setTextAppearance(R.style.TableHeader);
+					fld = activity.viewPool.borrowHeader();
 					fld.setText(colHeaders[icol]);
 				}
 				fld.setWidth(colLengths[icol]);
@@ -133,16 +131,14 @@ final class LinksViewer extends BaseViewer {
 		gcp.setMargins(4, 4, 4, 4);
 
 		for (int irow = 0; irow < nrows; irow++) {
-			TableRow row = new TableRow(activity);
+			TableRow row = activity.viewPool.borrowRow();
 			for (int icol = 0; icol < ncols; icol++) {
-				TextView txv = new TextView(activity);
+				boolean okCell = irow > 0 && icol > 0;
+				TextView txv = okCell ? activity.viewPool.borrowText() : activity.viewPool.borrowHeader();
 				txv.setWidth(colWidth);
 				txv.setGravity(Gravity.CENTER_HORIZONTAL);
 				txv.setText("");
-				if (irow > 0 && icol > 0)
-					txv.setBackground(border);
-				else
-					txv.setTextAppearance(R.style.TableHeader);
+				if (okCell) txv.setBackground(border);
 				if (irow > 0 && icol == 0) {
 					txv.setMaxLines(1);
 					txv.setEllipsize(TextUtils.TruncateAt.END);
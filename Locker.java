@@ -4,16 +4,45 @@ import android.content.SharedPreferences;
 
 import com.mysterymaster.solver.ILocker;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The Locker handles application-specific storage where data is stored as key-value pairs.<br>
+ * Values are read from and written to an in-memory cache. The changed values are written to storage
+ * together, on a background thread shortly after the first change, or on the UI thread when the activity is paused.<br>
+ * Note: The values are written with apply, which Android completes before the paused activity is stopped,
+ * so a write requested by onPause is not lost if the process is then killed.<br>
  * Copyright (c) 2018 mysterymaster.com. All rights reserved.
- * @version 2018-05-15
+ * @version 2018-05-17
  * @author Michael Benson <michael.benson@mysterymaster.com>
  */
 final class Locker implements ILocker {
+	/** Delay in milliseconds between the first change and the write to storage. */
+	private static final long FLUSH_DELAY = 2000;
+
 	/** Application-specific storage. */
 	private final SharedPreferences storage;
 
+	/** Values read or written so far, given by their key. */
+	private final Map<String, Object> values = new HashMap<>();
+
+	/** Values not yet written to storage, given by their key. */
+	private Map<String, Object> dirty = new HashMap<>();
+
+	/** True if a write to storage is scheduled. */
+	private boolean okScheduled = false;
+
+	/** Thread that writes to storage after a change. Shared by all lockers, and never stopped. */
+	private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "locker");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	/**
 	 * Constructor.
 	 * @param storage Storage.
@@ -23,28 +52,69 @@ final class Locker implements ILocker {
 	}
 
 	@Override
-	public boolean getBoolean(final String key, final boolean def) {
-		return storage.getBoolean(key, def);
+	public synchronized boolean getBoolean(final String key, final boolean def) {
+		Object val = values.get(key);
+		if (val instanceof Boolean) return (Boolean) val;
+		boolean b = storage.getBoolean(key, def);
+		values.put(key, b);
+		return b;
 	}
 
 	@Override
 	public boolean setBoolean(final String key, final boolean val) {
-		SharedPreferences.Editor editor = storage.edit();
-		editor.putBoolean(key, val);
-		editor.apply();
+		put(key, val);
 		return val;
 	}
 
 	@Override
-	public int getInt(final String key, final int def) {
-		return storage.getInt(key, def);
+	public synchronized int getInt(final String key, final int def) {
+		Object val = values.get(key);
+		if (val instanceof Integer) return (Integer) val;
+		int i = storage.getInt(key, def);
+		values.put(key, i);
+		return i;
 	}
 
 	@Override
 	public int setInt(final String key, final int val) {
+		put(key, val);
+		return val;
+	}
+
+	/**
+	 * Saves the value in the cache, and schedules the write to storage if the value changed.
+	 * @param key Key.
+	 * @param val Boolean or Integer value.
+	 */
+	private synchronized void put(final String key, final Object val) {
+		if (val.equals(values.put(key, val)) && !dirty.containsKey(key)) return;
+		dirty.put(key, val);
+		if (okScheduled) return;
+		okScheduled = true;
+		writer.schedule(this::write, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	/** Writes the changed values to storage now. Called by activity.onPause. */
+	void flush() {
+		write();
+	}
+
+	/** Writes the changed values to storage in one apply. Called by flush, or on the background thread. */
+	private void write() {
+		Map<String, Object> map;
+		synchronized (this) {
+			okScheduled = false;
+			if (dirty.isEmpty()) return;
+			map = dirty;
+			dirty = new HashMap<>();
+		}
+
 		SharedPreferences.Editor editor = storage.edit();
-		editor.putInt(key, val);
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			Object val = entry.getValue();
+			if (val instanceof Boolean) editor.putBoolean(entry.getKey(), (Boolean) val);
+			else editor.putInt(entry.getKey(), (Integer) val);
+		}
 		editor.apply();
-		return val;
 	}
 }
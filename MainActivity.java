@@ -12,17 +12,16 @@ import android.view.MenuItem;
 import android.view.View;
 
 import com.mysterymaster.puzzle.*;
-import com.mysterymaster.solver.IViewer;
 import com.mysterymaster.solver.Solver;
 import com.mysterymaster.solver.Spots;
 
 /**
- * The Main Activity class manages the UI and implements the IViewer interface.<br>
+ * The Main Activity class manages the UI. The solver holder implements the IViewer interface.<br>
  * Copyright (c) 2018 mysterymaster.com. All rights reserved.
  * @version 2018-05-14
  * @author Michael Benson <michael.benson@mysterymaster.com>
  */
-public class MainActivity extends AppCompatActivity implements IViewer {
+public class MainActivity extends AppCompatActivity implements SolutionCache.Replay {
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
@@ -35,6 +34,26 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 		initActivity();
 	}
 
+	@Override
+	protected void onPause() {
+		holder.saveCheckpoint();
+		locker.flush();
+		super.onPause();
+	}
+
+	@Override
+	protected void onDestroy() {
+		// The solver keeps running while the activity is recreated.
+		if (isChangingConfigurations()) holder.detach(); else holder.shutdown();
+		puzzleLoader.shutdown();
+		super.onDestroy();
+	}
+
+	@Override
+	public Object onRetainCustomNonConfigurationInstance() {
+		return holder;
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		// Inflate the menu; this adds items to the action bar if it is present.
@@ -60,7 +79,8 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 	/** Floating Action Button. Must sync with Solve button. See https://icons8.com/icon/set/ic-media-play/color */
 	private FloatingActionButton fab;
 
-	/** Initializes the Floating Action Button (fab). Mode is either: 0=play, 1=pause, 2=resume. */
+	/** Initializes the Floating Action Button (fab). Mode is either: 0=play, 1=pause, 2=resume.<br>
+	 * A long click in resume mode steps to the next event. */
 	private void initFab() {
 		fab = findViewById(R.id.fab);
 		fab.setTag(0);
@@ -77,6 +97,13 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 				}
 			}
 		);
+		fab.setOnLongClickListener(
+			view -> {
+				if ((int) fab.getTag() != 2) return false;
+				doStep(0);
+				return true;
+			}
+		);
 	}
 
 	/** Sets the Fab icon to play (mode=0). Called by reset, sayStopped. */
@@ -134,18 +161,18 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 
 	// <editor-fold defaultstate="collapsed" desc="Activity">
 
-	/** Locker object. */
+	/** Holder of the solver and the worker thread. Retained across configuration changes. */
+	SolverHolder holder;
+
+	/** Locker object. Owned by the holder. */
 	Locker locker;
 
-	/** Setup Options object. */
+	/** Setup Options object. Owned by the holder. */
 	Spots spots;
 
-	/** Solver object. */
+	/** Solver object. Owned by the holder. */
 	Solver solver;
 
-	/** Worker thread. */
-	private Thread worker = null;
-
 	/** Puzzle picker. */
 	private PuzzlePicker puzzlePicker;
 
@@ -155,11 +182,24 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 	/** Tabbed interface manager. */
 	private TabbyViewer tabbyViewer;
 
-	/** Initializes the Activity. Called by the onCreate method. */
+	/** Pool of table rows and cells shared by the viewers. */
+	ViewPool viewPool;
+
+	/** Loader of the puzzles selected by the puzzle picker. */
+	PuzzleLoader puzzleLoader;
+
+	/**
+	 * Initializes the Activity. Called by the onCreate method.<br>
+	 * If the activity is recreated, the retained holder is reused and the forms are rebuilt from the solver.
+	 */
 	private void initActivity() {
-		locker = new Locker(getPreferences(MODE_PRIVATE));
-		spots = new Spots(locker);
-		solver = new Solver(this, spots);
+		SolverHolder retained = (SolverHolder) getLastCustomNonConfigurationInstance();
+		holder = retained != null ? retained : new SolverHolder(this);
+		locker = holder.locker;
+		spots = holder.spots;
+		solver = holder.solver;
+		viewPool = new ViewPool(this);
+		puzzleLoader = new PuzzleLoader(this);
 
 		setFabVisibility();
 
@@ -168,7 +208,7 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 		tabbyViewer = new TabbyViewer(this);
 		puzzlePicker = new PuzzlePicker(this);
 
-		setPuzzle(null);
+		if (retained == null) setPuzzle(null, 0); else attachPuzzle();
 	}
 
 	/**
@@ -188,18 +228,25 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 
 	/** Returns true if the worker thread is working, otherwise false. */
 	private boolean isWorking() {
-		return worker != null && worker.isAlive();
+		return holder.isWorking();
 	}
 
 	/**
-	 * Sets and validates the puzzle.<br>Called by the puzzle picker.
+	 * Shows that the puzzle is loading. Solving is disabled until the puzzle is set.<br>Called by puzzleLoader.load.
+	 * @param title Title of the puzzle.
+	 */
+	void sayLoading(final String title) {
+		boardViewer.sayLoading("Loading " + title + "...");
+		fab.setEnabled(false);
+	}
+
+	/**
+	 * Sets the puzzle that was validated by the puzzle loader.<br>Called by initActivity, puzzleLoader.load.
 	 * @param puzzle Puzzle, or null.
+	 * @param rs Status returned by puzzle.validate, or zero.
 	 */
-	void setPuzzle(final Puzzle puzzle) {
-		int rs = 0;
-		if (puzzle != null) {
-			rs = puzzle.validate(solver);
-		}
+	void setPuzzle(final Puzzle puzzle, final int rs) {
+		holder.puzzle = puzzle;
 		solver.setPuzzle(puzzle);
 		reset();
 
@@ -212,8 +259,38 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 		tabbyViewer.setPuzzle(puzzle);
 		fab.setEnabled(puzzle != null);
 
-		// Automatically solve the valid puzzle if auto-run is true.
-		if (puzzle != null && rs == 0 && spots.okAutorun) doSolve();
+		// Restore the paused solve saved before the process was killed, or
+		// automatically solve the valid puzzle if auto-run is true.
+		if (holder.restoreCheckpoint()) sayEvent(new Dispatcher.Event(Dispatcher.STARTED, "Restoring the paused solve...", false));
+		else if (puzzle != null && rs == 0 && spots.okAutorun) doSolve();
+	}
+
+	/**
+	 * Rebuilds the forms after the activity is recreated, without solving the puzzle again. Called by initActivity.<br>
+	 * The grids and the chart are loaded from the solver only if the worker is idle or paused. Otherwise the worker
+	 * sends them after its next event, and the events queued while no activity was attached bring them up to date.
+	 */
+	private void attachPuzzle() {
+		Puzzle puzzle = holder.puzzle;
+		if (isWorking()) holder.requestSync();
+		boolean okLoad = !isWorking() || holder.control.isPaused();
+		boardViewer.setPuzzle(puzzle);
+		tabbyViewer.attachPuzzle(puzzle, okLoad);
+		fab.setEnabled(puzzle != null);
+
+		if (holder.replayed != null) {
+			// The solver does not have the marks of a replayed solution, so it is replayed again.
+			tabbyViewer.reset();
+			replaySolution();
+		}
+		else if (isWorking() || solver.numMarks > 0) {
+			// Update the board, the picker, and the fab as if the events were sent again.
+			sayEvent(new Dispatcher.Event(Dispatcher.STARTED, null, holder.control.isPaused()));
+			if (!isWorking()) sayEvent(new Dispatcher.Event(Dispatcher.STOPPED, null, false));
+		}
+
+		holder.attach(this);
+		flush();
 	}
 
 	/**
@@ -222,19 +299,23 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 	 */
 	void reset() {
 		setFabToPlay();
+		holder.replayed = null;
+		holder.clearSnapshots();
 		solver.reset();
+		holder.takeCounters();
 		boardViewer.reset();
 		tabbyViewer.reset();
 	}
 
 	/**
 	 * Solves the puzzle.<br>
-	 * Called when the Solve button is clicked, or a puzzle is selected and auto-run is true.
+	 * Called when the Solve button is clicked, or a puzzle is selected and auto-run is true.<br>
+	 * If the puzzle was solved before with the same setup options and no pause is requested, the saved
+	 * solution is replayed instead of running the solver. Otherwise the marks are recorded as the solver enters them.
 	 */
 	void doSolve() {
 		reset();
-		worker = solver.getThread(0);
-		worker.start();
+		holder.solve();
 	}
 
 	/** Requests the solver to pause. Called by the BoardViewer when the Pause button is pressed. */
@@ -243,20 +324,34 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 	}
 
 	/**
-	 * Resumes the worker thread by calling its interrupt method.
-	 * Called when the Resume button is clicked or by sayWait if no pause is necessary.
+	 * Resumes the paused worker thread until the setup options request a pause.<br>
+	 * Called when the Resume button is clicked.
 	 */
 	void doResume(final boolean okPause) {
-		if (okPause) {
-			boardViewer.sayPause();
-			setFabToPause();
-		}
-		if (worker != null) worker.interrupt();
+		if (okPause) sayRunning();
+		holder.control.resume();
+	}
+
+	/**
+	 * Resumes the paused worker thread for a single step.<br>
+	 * Called when the Resume button or the Resume fab is long-clicked.
+	 * @param numMarks Number of marks to enter before pausing again, or zero to pause at the next event.
+	 */
+	void doStep(final int numMarks) {
+		sayRunning();
+		if (numMarks > 0) holder.control.stepMarks(numMarks); else holder.control.step();
+	}
+
+	/** Updates the Solve button and the fab when the worker thread resumes. */
+	private void sayRunning() {
+		boardViewer.sayPause();
+		setFabToPause();
 	}
 
 	/** Requests the solver to stop solving. Called when the Quit button is clicked. */
 	void doQuit() {
-		solver.doQuit();
+		holder.executor.cancel();
+		holder.control.quit();
 	}
 
 	/**
@@ -267,16 +362,20 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 	 * @param noun2 Noun 2.
 	 */
 	void addMarkByUser(final Noun noun1, final Verb verb, final Noun noun2) {
-		jot("exec activity.addMarkByUser noun1=" + noun1 + " verb=" + verb + " noun2=" + noun2 + " isWorking? " + isWorking());
+		holder.jot("exec activity.addMarkByUser noun1=" + noun1 + " verb=" + verb + " noun2=" + noun2 + " isWorking? " + isWorking());
 		if (isWorking()) return;
 
+		// The snapshot must show every mark entered so far.
+		holder.drain();
+		UndoSnapshot snapshot = tabbyViewer.takeSnapshot();
+
 		int rs = solver.addMarkByUser(noun1, verb, noun2);
-		jot("activity.addMarkByUser rs=" + rs);
+		holder.jot("activity.addMarkByUser rs=" + rs);
 		if (rs != 0) return;
 
-		worker = solver.getThread(1);
-		worker.start();
-		jot("done activity.addMarkByUser");
+		if (snapshot != null) holder.pushSnapshot(snapshot);
+		holder.run(SolverExecutor.ADD_USER_MARK);
+		holder.jot("done activity.addMarkByUser");
 	}
 
 	/**
@@ -284,158 +383,135 @@ public class MainActivity extends AppCompatActivity implements IViewer {
 	 * Called by the grids viewer when the Undo button is pressed.
 	 */
 	void undoUserMark() {
-		jot("exec activity.undoUserMark isWorking? " + isWorking());
+		holder.jot("exec activity.undoUserMark isWorking? " + isWorking());
 		if (isWorking()) return;
 
 		Mark mark = solver.getLastUserMark();
 		if (mark == null) return;
 
-		worker = solver.getThread(2);
-		worker.start();
-		jot("done activity.undoUserMark");
+		holder.drain();
+		holder.undo(mark);
+		holder.jot("done activity.undoUserMark");
 	}
 
 	/**
-	 * Updates the board if the user requested a pause.
-	 * @param okPause Boolean.
+	 * Updates the board when the worker thread is paused. Called by sayEvent on the UI thread.
 	 */
-	private void sayWait(final boolean okPause) {
-		if (okPause) {
-			spots.okPauseNext = false;
-			boardViewer.sayResume();
-			setFabToResume();
-		}
-		else
-			doResume(false);
+	private void sayWait() {
+		spots.okPauseNext = false;
+		boardViewer.sayResume();
+		setFabToResume();
 	}
 
 	// </editor-fold>
 
 	// <editor-fold defaultstate="collapsed" desc="IViewer">
 
-	@Override
-	public void jot(final String msg) {
-		BaseViewer.print(msg);
-	}
-
-	@Override
-	public void sayStarted(final String msg) {
-		boolean okPause = spots.sayStarted(msg);
-		runOnUiThread(() -> {
-			boardViewer.sayStarted(msg);
-			tabbyViewer.sayStarted();
-			puzzlePicker.setEnabled(false);
-			setFabToPause();
-			sayWait(okPause);
-		});
-	}
-
-	@Override
-	public void sayStopped(final String msg) {
-		boolean okPause = spots.sayStopped();
-		runOnUiThread(() -> {
-			boardViewer.sayStopped(msg);
-			tabbyViewer.sayStopped();
-			puzzlePicker.setEnabled(true);
-			setFabToPlay();
-			sayWait(okPause);
-		});
-	}
-
-	@Override
-	public void sayLevel(final String msg) {
-		boolean okPause = spots.sayLevel();
-		runOnUiThread(() -> {
-			boardViewer.sayLevel(msg);
-			sayWait(okPause);
-		});
-	}
-
-	@Override
-	public void saySolution(final String msg) {
-		boolean okPause = spots.saySolution();
-		runOnUiThread(() -> {
-			boardViewer.setMsg(msg);
-			sayWait(okPause);
-		});
+	/**
+	 * Updates the viewers for the event sent by the solver. Called by the dispatcher on the UI thread, and by setPuzzle, attachPuzzle.
+	 * @param event Event.
+	 */
+	void sayEvent(final Dispatcher.Event event) {
+		final String msg = event.msg;
+		switch (event.kind) {
+			case Dispatcher.STARTED:
+				boardViewer.sayStarted(msg);
+				tabbyViewer.sayStarted();
+				puzzlePicker.setEnabled(false);
+				setFabToPause();
+				break;
+			case Dispatcher.STOPPED:
+				boardViewer.sayStopped(msg);
+				tabbyViewer.sayStopped();
+				puzzlePicker.setEnabled(true);
+				setFabToPlay();
+				break;
+			case Dispatcher.LEVEL:
+				boardViewer.sayLevel(msg);
+				break;
+			case Dispatcher.ADD_MARK:
+				boardViewer.sayAddMark(msg);
+				tabbyViewer.sayAddMark(event);
+				break;
+			case Dispatcher.REMOVE_MARK:
+				boardViewer.sayRemoveMark(msg);
+				tabbyViewer.sayRemoveMark(event);
+				break;
+			case Dispatcher.VALID_MARK:
+				boardViewer.setMsg(msg);
+				tabbyViewer.sayValidMark(event);
+				break;
+			case Dispatcher.FACT_VIOLATION:
+				boardViewer.sayFactViolation(msg);
+				break;
+			case Dispatcher.RULE_VIOLATION:
+				boardViewer.sayRuleViolation(msg);
+				break;
+			case Dispatcher.PLACERS:
+				boardViewer.setMsg(msg);
+				tabbyViewer.sayPlacers(event);
+				break;
+			case Dispatcher.RESTORED:
+				// The forms are rebuilt from the rows and the tables of the solver at the checkpoint.
+				holder.sayRestored();
+				tabbyViewer.attachPuzzle(holder.puzzle, false);
+				tabbyViewer.sayTables(event);
+				break;
+			case Dispatcher.SYNC:
+				tabbyViewer.sayTables(event);
+				break;
+			case Dispatcher.UNDONE:
+				UndoSnapshot snapshot = holder.takeUndoSnapshot();
+				if (snapshot != null) tabbyViewer.restoreSnapshot(snapshot);
+				break;
+			default:
+				boardViewer.setMsg(msg);
+				break;
+		}
+		if (event.okPause) sayWait();
 	}
 
-	@Override
-	public void sayAddMark(final String msg, final Mark mark) {
-		boolean okPause = spots.sayAddMark(mark);
-		runOnUiThread(() -> {
-			boardViewer.sayAddMark(msg);
-			tabbyViewer.sayAddMark(mark);
-			sayWait(okPause);
-		});
+	/** Repaints the viewers once after the events for a frame are handled. Called by the dispatcher. */
+	void flush() {
+		boardViewer.flush();
+		tabbyViewer.flush();
 	}
 
-	@Override
-	public void sayRemoveMark(final String msg, final Mark mark) {
-		boolean okPause = spots.sayRemoveMark(mark);
-		runOnUiThread(() -> {
-			boardViewer.sayRemoveMark(msg);
-			tabbyViewer.sayRemoveMark(mark);
-			sayWait(okPause);
-		});
-	}
+	// </editor-fold>
 
-	@Override
-	public void sayValidMark(final String msg, final Mark mark) {
-		boolean okPause = spots.sayValidMark();
-		runOnUiThread(() -> {
-			boardViewer.setMsg(msg);
-			tabbyViewer.sayValidMark(mark);
-			sayWait(okPause);
-		});
-	}
+	// <editor-fold defaultstate="collapsed" desc="Replay">
 
-	@Override
-	public void sayContradiction(final String msg) {
-		boolean okPause = spots.sayContradiction();
-		runOnUiThread(() -> {
-			boardViewer.setMsg(msg);
-			sayWait(okPause);
-		});
+	/**
+	 * Displays the saved solution kept by the holder without running the solver. Every mark is applied in this frame.<br>
+	 * The solution was already read on the worker thread. Called by holder.replay on the UI thread, and by attachPuzzle.
+	 */
+	void replaySolution() {
+		tabbyViewer.replayStarted();
+		holder.replayed.replay(this);
+		flush();
 	}
 
 	@Override
-	public void sayFactViolation(final String msg, final Mark mark, final Fact fact) {
-		boolean okPause = spots.sayFactViolation();
-		runOnUiThread(() -> {
-			boardViewer.sayFactViolation(msg);
-			tabbyViewer.sayFactViolation(fact);
-			sayWait(okPause);
-		});
+	public void replayAddMark(final int num, final Noun noun1, final Noun noun2, final int verbNum, final boolean valid,
+			final String level, final String type, final String name) {
+		tabbyViewer.replayAddMark(num, noun1, noun2, verbNum, valid, level, type, name);
 	}
 
 	@Override
-	public void sayRuleViolation(final String msg, final Mark mark, final Rule rule) {
-		boolean okPause = spots.sayRuleViolation();
-		runOnUiThread(() -> {
-			boardViewer.sayRuleViolation(msg);
-			tabbyViewer.sayRuleViolation(rule);
-			sayWait(okPause);
-		});
+	public void replayRemoveMark(final int num, final Noun noun1, final Noun noun2) {
+		tabbyViewer.replayRemoveMark(num, noun1, noun2);
 	}
 
 	@Override
-	public void sayLawViolation(final String msg, final Mark mark) {
-		boolean okPause = spots.sayLawViolation();
-		runOnUiThread(() -> {
-			boardViewer.setMsg(msg);
-			sayWait(okPause);
-		});
+	public void replayValidMark(final int num, final boolean valid) {
+		tabbyViewer.replayValidMark(num, valid);
 	}
 
 	@Override
-	public void sayPlacers(final String msg, final Mark mark, final Rule rule) {
-		boolean okPause = spots.sayPlacers();
-		runOnUiThread(() -> {
-			boardViewer.setMsg(msg);
-			tabbyViewer.sayPlacers(mark, rule);
-			sayWait(okPause);
-		});
+	public void replayStopped(final BoardCounters counters, final FormCounters forms, final String msg) {
+		holder.counters = counters;
+		holder.forms = forms;
+		boardViewer.sayReplayed(msg + " (replayed)");
 	}
 
 	// </editor-fold>
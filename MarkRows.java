@@ -0,0 +1,202 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Helper;
+import com.mysterymaster.puzzle.Mark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Mark Rows keep the compact data the Marks form displays for each mark, without keeping the marks.<br>
+ * Row i is for mark number i + 1. The levels and types are kept once in a string table, and each row keeps
+ * their indexes. The name of a row is replaced by its one-line name the first time the row is bound.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class MarkRows {
+	/** Number of rows. */
+	private int size = 0;
+
+	/** Valid flag for each row. */
+	private boolean[] valids = new boolean[64];
+
+	/** Index of the level in the string table for each row. */
+	private byte[] levels = new byte[64];
+
+	/** Index of the type in the string table for each row. */
+	private byte[] types = new byte[64];
+
+	/** Name for each row, or its one-line name once the row is bound. */
+	private String[] names = new String[64];
+
+	/** True for each row whose name was replaced by its one-line name. */
+	private boolean[] oneLines = new boolean[64];
+
+	/** Level and type strings, given by their index. */
+	private final List<String> strings = new ArrayList<>();
+
+	/** Index of each level and type string in the string table. */
+	private final Map<String, Integer> indexes = new HashMap<>();
+
+	/** Returns the number of rows. */
+	int size() {
+		return size;
+	}
+
+	/** Removes all the rows. The string table is kept. */
+	void clear() {
+		Arrays.fill(names, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Replaces the rows with a copy of the given rows. Called when a checkpoint is restored.
+	 * @param rows Rows.
+	 */
+	void copyFrom(final MarkRows rows) {
+		clear();
+		for (int i = 0; i < rows.size; i++) {
+			add(rows.valids[i], rows.strings.get(rows.levels[i]), rows.strings.get(rows.types[i]), rows.names[i]);
+			oneLines[i] = rows.oneLines[i];
+		}
+	}
+
+	/**
+	 * Appends the row for the mark.
+	 * @param mark Mark.
+	 */
+	void add(final Mark mark) {
+		add(mark.valid, mark.levelAsString, mark.type.toString(), mark.name);
+	}
+
+	/**
+	 * Appends a row. Called by add(mark), and when a solution is replayed.
+	 * @param valid Valid flag.
+	 * @param level Level.
+	 * @param type Type.
+	 * @param name Name.
+	 */
+	void add(final boolean valid, final String level, final String type, final String name) {
+		if (size == valids.length) {
+			int capacity = 2 * size;
+			valids = Arrays.copyOf(valids, capacity);
+			levels = Arrays.copyOf(levels, capacity);
+			types = Arrays.copyOf(types, capacity);
+			names = Arrays.copyOf(names, capacity);
+			oneLines = Arrays.copyOf(oneLines, capacity);
+		}
+		valids[size] = valid;
+		levels[size] = getIndex(level);
+		types[size] = getIndex(type);
+		names[size] = name;
+		oneLines[size] = false;
+		++size;
+	}
+
+	/**
+	 * Returns the index of the string in the string table, and adds the string if it is new.<br>
+	 * Note: There are only a few levels and types, so an index fits in a byte.
+	 * @param str Level or type.
+	 * @return Index.
+	 */
+	private byte getIndex(final String str) {
+		Integer index = indexes.get(str);
+		if (index == null) {
+			index = strings.size();
+			strings.add(str);
+			indexes.put(str, index);
+		}
+		return (byte) (int) index;
+	}
+
+	/**
+	 * Removes the row at the given position. Marks are normally removed from the end.
+	 * @param pos Zero-based position.
+	 */
+	void remove(final int pos) {
+		int n = size - pos - 1;
+		if (n > 0) {
+			System.arraycopy(valids, pos + 1, valids, pos, n);
+			System.arraycopy(levels, pos + 1, levels, pos, n);
+			System.arraycopy(types, pos + 1, types, pos, n);
+			System.arraycopy(names, pos + 1, names, pos, n);
+			System.arraycopy(oneLines, pos + 1, oneLines, pos, n);
+		}
+		--size;
+		names[size] = null;
+	}
+
+	/**
+	 * Removes the rows from the given position to the end.
+	 * @param pos Zero-based position, which becomes the number of rows.
+	 */
+	void truncate(final int pos) {
+		if (pos >= size) return;
+		Arrays.fill(names, pos, size, null);
+		size = pos;
+	}
+
+	/**
+	 * Sets the valid flag of the row.
+	 * @param pos Zero-based position.
+	 * @param valid Valid flag.
+	 */
+	void setValid(final int pos, final boolean valid) {
+		valids[pos] = valid;
+	}
+
+	/**
+	 * Returns a copy of the valid flags of the rows.
+	 * @return Valid flags, where valid = valids[pos].
+	 */
+	boolean[] copyValids() {
+		return Arrays.copyOf(valids, size);
+	}
+
+	boolean isValid(final int pos) {
+		return valids[pos];
+	}
+
+	String getLevel(final int pos) {
+		return strings.get(levels[pos]);
+	}
+
+	String getType(final int pos) {
+		return strings.get(types[pos]);
+	}
+
+	/**
+	 * Returns the FNV-1a hash of the valid flag, level, type, and one-line name of every row.<br>
+	 * Called when a checkpoint is saved, and when it is restored, to check the solver made the same marks.
+	 * @return Fingerprint.
+	 */
+	long getFingerprint() {
+		long h = PuzzleFingerprint.FNV_OFFSET;
+		h = PuzzleFingerprint.hash(h, size);
+		for (int i = 0; i < size; i++) {
+			h = PuzzleFingerprint.hash(h, valids[i] ? 1 : 0);
+			h = PuzzleFingerprint.hash(h, getLevel(i));
+			h = PuzzleFingerprint.hash(h, getType(i));
+			h = PuzzleFingerprint.hash(h, getOneLineName(i));
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the name of the row as one line. Called by the adapter when the row is bound.<br>
+	 * The one-line name replaces the name, so it is made only once for each row.
+	 * @param pos Zero-based position.
+	 * @return One-line name.
+	 */
+	String getOneLineName(final int pos) {
+		if (!oneLines[pos]) {
+			names[pos] = Helper.getMsgAsOneLine(names[pos], " ");
+			oneLines[pos] = true;
+		}
+		return names[pos];
+	}
+}
@@ -8,9 +8,6 @@ import android.view.ViewGroup;
 import android.widget.CheckBox;
 import android.widget.TextView;
 
-import com.mysterymaster.puzzle.Helper;
-import com.mysterymaster.puzzle.Mark;
-
 import java.util.List;
 
 /**
@@ -21,15 +18,18 @@ import java.util.List;
 
  */
 public final class MarksAdapter extends RecyclerView.Adapter<MarksAdapter.ViewHolder> {
-	/** List of marks. */
-	private final List<Mark> marks;
+	/** Payload when only the valid flag of a mark changed. */
+	static final String PAYLOAD_VALID = "valid";
+
+	/** Rows of the marks. */
+	private final MarkRows rows;
 
 	/**
 	 * Constructor.
-	 * @param marks List of marks.
+	 * @param rows Rows of the marks.
 	 */
-	MarksAdapter(final List<Mark> marks) {
-		this.marks = marks;
+	MarksAdapter(final MarkRows rows) {
+		this.rows = rows;
 	}
 
 	// Inflates a layout from XML and returns the holder.
@@ -48,18 +48,29 @@ public final class MarksAdapter extends RecyclerView.Adapter<MarksAdapter.ViewHo
 	// Populates the data into the item through the holder via its zero-based position.
 	@Override
 	public void onBindViewHolder(MarksAdapter.ViewHolder holder, final int position) {
-		Mark mark = marks.get(position);
-		BaseViewer.setText(holder.txtMarkNum, mark.num);
-		holder.chkMarkValid.setChecked(mark.valid);
-		holder.txtMarkLevel.setText(mark.levelAsString);
-		holder.txtMarkType.setText(mark.type.toString());
-		holder.txtMarkName.setText(Helper.getMsgAsOneLine(mark.name, " "));
+		BaseViewer.setText(holder.txtMarkNum, position + 1);
+		holder.chkMarkValid.setChecked(rows.isValid(position));
+		holder.txtMarkLevel.setText(rows.getLevel(position));
+		holder.txtMarkType.setText(rows.getType(position));
+		holder.txtMarkName.setText(rows.getOneLineName(position));
+	}
+
+	// Updates only the fields given by the payloads, or the whole item if there are no payloads.
+	@Override
+	public void onBindViewHolder(MarksAdapter.ViewHolder holder, final int position, final List<Object> payloads) {
+		if (payloads.isEmpty()) {
+			onBindViewHolder(holder, position);
+			return;
+		}
+		for (Object payload : payloads) {
+			if (PAYLOAD_VALID.equals(payload)) holder.chkMarkValid.setChecked(rows.isValid(position));
+		}
 	}
 
 	/** Returns the size of the dataset (invoked by the layout manager). */
 	@Override
 	public int getItemCount() {
-		return marks.size();
+		return rows.size();
 	}
 
 	/** Provides a reference to the views for each data item. */
@@ -3,12 +3,8 @@ package com.mysterymaster.androidapp;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 
-import com.mysterymaster.puzzle.Mark;
 import com.mysterymaster.puzzle.Puzzle;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The Marks Viewer class manages the Marks form.<br>
  * Copyright (c) 2018 mysterymaster.com. All rights reserved.
@@ -22,8 +18,12 @@ final class MarksViewer extends BaseViewer {
 	/** Adapter for the Marks recycler view. */
 	private final RecyclerView.Adapter marksAdapter;
 
-	/** Copy of the marks. Needed to avoid the "IndexOutOfBounds Exception: Inconsistency detected" fatal exception. */
-	private final List<Mark> marks = new ArrayList<>();
+	/**
+	 * Rows of the marks. Needed to avoid the "IndexOutOfBounds Exception: Inconsistency detected" fatal exception.<br>
+	 * Only the data displayed is kept, so a long solve does not hold on to every mark.<br>
+	 * The rows are owned by the solver holder, so they outlive the activity.
+	 */
+	private final MarkRows rows;
 
 	/**
 	 * Constructor.
@@ -32,10 +32,11 @@ final class MarksViewer extends BaseViewer {
 	MarksViewer(final MainActivity activity) {
 		this.activity = activity;
 		this.solver = activity.solver;
+		this.rows = activity.holder.markRows;
 		tblMarks = activity.findViewById(R.id.tblMarks);
 
 		// Create adapter and pass the dataset.
-		marksAdapter = new MarksAdapter(marks);
+		marksAdapter = new MarksAdapter(rows);
 		tblMarks.setAdapter(marksAdapter);
 
 		// Set the layout manager.
@@ -49,50 +50,142 @@ final class MarksViewer extends BaseViewer {
 	 */
 	void setPuzzle(final Puzzle puzzle) {
 		this.puzzle = puzzle;
-		marks.clear();
+		rows.clear();
 		update();
 	}
 
+	/**
+	 * Updates the form with the rows kept by the solver holder after the activity is recreated.<br>
+	 * Called by tabbyViewer.attachPuzzle.
+	 * @param puzzle Puzzle, or null.
+	 */
+	void attachPuzzle(final Puzzle puzzle) {
+		this.puzzle = puzzle;
+		update();
+		scrollPos = rows.size() - 1;
+	}
+
 	/** Resets the form. Called by tabbyViewer.reset. */
 	void reset() {
-		marks.clear();
+		rows.clear();
 		update();
 	}
 
 	/** Updates the Marks form. Called by reset. */
 	private void update() {
+		pendingOp = 0;
+		scrollPos = -1;
 		marksAdapter.notifyDataSetChanged();
 	}
 
 	/**
-	 * Updates the Marks form for the mark. Called by sayAddMark, sayRemoveMark, sayValidMark.
-	 * @param mark Mark.
+	 * Updates the Marks form for the mark. Called by sayAddMark, sayRemoveMark, sayValidMark.<br>
+	 * Consecutive entered marks, or consecutive removed marks, are announced to the adapter as one range.
+	 * @param event Event with the fields of the mark.
+	 * @param d Flag where value is either : -1=removed, 0=validated, or 1=entered.
+	 */
+	void update(final Dispatcher.Event event, final int d) {
+		//print("tabViewer.initForm " + event.markNum);
+
+		int pos = event.markNum - 1;
+		switch (d) {
+			case -1: rows.remove(pos); break;
+			case 0: rows.setValid(pos, event.valid); break;
+			case 1: rows.add(event.valid, event.level, event.type, event.name); break;
+		}
+		notifyRow(pos, d);
+	}
+
+	/**
+	 * Updates the Marks form for a mark of a solution that is replayed. Called by tabbyViewer.replayAddMark,
+	 * replayRemoveMark, replayValidMark.
+	 * @param num Mark number.
 	 * @param d Flag where value is either : -1=removed, 0=validated, or 1=entered.
+	 * @param valid Valid flag.
+	 * @param level Level, or null if the mark is not entered.
+	 * @param type Type, or null if the mark is not entered.
+	 * @param name Name, or null if the mark is not entered.
+	 */
+	void replay(final int num, final int d, final boolean valid, final String level, final String type, final String name) {
+		int pos = num - 1;
+		switch (d) {
+			case -1: rows.remove(pos); break;
+			case 0: rows.setValid(pos, valid); break;
+			case 1: rows.add(valid, level, type, name); break;
+		}
+		notifyRow(pos, d);
+	}
+
+	/** Returns a copy of the valid flags of the rows, whose length is the number of rows. Called by tabbyViewer.takeSnapshot. */
+	boolean[] copyValids() {
+		return rows.copyValids();
+	}
+
+	/**
+	 * Removes the rows after the given number of rows, and announces them to the adapter as one range.
+	 * Then restores the valid flags of the rows that are kept.<br>
+	 * Called by tabbyViewer.restoreSnapshot.
+	 * @param valids Valid flag of each row to keep.
 	 */
-	void update(final Mark mark, final int d) {
-		//print("tabViewer.initForm " + mark.num);
+	void restoreRows(final boolean[] valids) {
+		notifyPending();
+		int numRows = valids.length;
+		int n = rows.size() - numRows;
+		if (n > 0) {
+			rows.truncate(numRows);
+			marksAdapter.notifyItemRangeRemoved(numRows, n);
+			scrollPos = numRows - 1;
+		}
+		for (int pos = 0; pos < numRows && pos < rows.size(); pos++) {
+			if (rows.isValid(pos) == valids[pos]) continue;
+			rows.setValid(pos, valids[pos]);
+			marksAdapter.notifyItemChanged(pos, MarksAdapter.PAYLOAD_VALID);
+		}
+	}
 
-		int pos = mark.num - 1;
+	/**
+	 * Announces the row change to the adapter.<br>
+	 * Consecutive entered rows, or consecutive removed rows, are announced as one range.
+	 * Entered rows that are removed before the range is announced cancel out.
+	 * @param pos Zero-based position of the row.
+	 * @param d Flag where value is either : -1=removed, 0=validated, or 1=entered.
+	 */
+	private void notifyRow(final int pos, final int d) {
 		switch (d) {
 			case -1:
-				marks.remove(mark.num - 1);
-				marksAdapter.notifyItemRemoved(pos);
+				// A row entered during this frame and removed again, as when the solver backs out of a guess,
+				// was never announced, so it is only dropped from the pending range.
+				if (pendingOp == 1 && pendingCount > 0 && pos == pendingStart + pendingCount - 1) {
+					if (--pendingCount == 0) pendingOp = 0;
+					break;
+				}
+				// Marks are removed from the end, so the range grows downward.
+				if (pendingOp != -1 || pos != pendingStart - 1) {
+					notifyPending();
+					pendingOp = -1;
+					pendingCount = 0;
+				}
+				pendingStart = pos;
+				++pendingCount;
 				break;
 			case 0:
-				marksAdapter.notifyItemChanged(pos);
+				// An entered mark that is still pending is bound in full, so it needs no payload.
+				if (pendingOp == 1 && pos >= pendingStart) break;
+				notifyPending();
+				marksAdapter.notifyItemChanged(pos, MarksAdapter.PAYLOAD_VALID);
 				break;
 			case 1:
-				marks.add(mark);
-				marksAdapter.notifyItemInserted(pos);
+				if (pendingOp != 1 || pos != pendingStart + pendingCount) {
+					notifyPending();
+					pendingOp = 1;
+					pendingStart = pos;
+					pendingCount = 0;
+				}
+				++pendingCount;
 				break;
 		}
 
-		tblMarks.scrollToPosition(pos);
-		marksAdapter.notifyDataSetChanged();
-
-		// The following does not work when a mark is removed.
-		//tblMarks.scrollToPosition(pos);
-		//marksAdapter.notifyDataSetChanged();
+		scrollPos = pos;
 
 		// Move focus to item given by its position. THIS DOES NOT WORK WHEN MARKS ARE REMOVED!
 		//int position = marksAdapter.getItemCount();
@@ -101,4 +194,34 @@ final class MarksViewer extends BaseViewer {
 
 		//if (mark.num > 5) for (long i = 0; i < Long.MAX_VALUE; i++);
 	}
+
+	/** Pending range operation where value is either: -1=removed, 0=none, or 1=entered. */
+	private int pendingOp = 0;
+
+	/** Zero-based position of the first mark in the pending range. */
+	private int pendingStart = 0;
+
+	/** Number of marks in the pending range. */
+	private int pendingCount = 0;
+
+	/** Announces the pending range to the adapter. */
+	private void notifyPending() {
+		switch (pendingOp) {
+			case -1: marksAdapter.notifyItemRangeRemoved(pendingStart, pendingCount); break;
+			case 1: marksAdapter.notifyItemRangeInserted(pendingStart, pendingCount); break;
+		}
+		pendingOp = 0;
+	}
+
+	/** Position of the last mark updated during the frame, or -1. */
+	private int scrollPos = -1;
+
+	/** Announces the pending range, and scrolls to the last mark updated during the frame. Called by tabbyViewer.flush. */
+	void flush() {
+		notifyPending();
+		if (scrollPos < 0) return;
+		int pos = Math.min(scrollPos, rows.size() - 1);
+		if (pos >= 0) tblMarks.scrollToPosition(pos);
+		scrollPos = -1;
+	}
 }
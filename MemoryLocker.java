@@ -0,0 +1,44 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.solver.ILocker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Memory Locker keeps the key-value pairs in memory only. Used when there is no Android storage.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class MemoryLocker implements ILocker {
+	/** Boolean values. */
+	private final Map<String, Boolean> booleans = new HashMap<>();
+
+	/** Integer values. */
+	private final Map<String, Integer> ints = new HashMap<>();
+
+	@Override
+	public boolean getBoolean(final String key, final boolean def) {
+		Boolean val = booleans.get(key);
+		return val != null ? val : def;
+	}
+
+	@Override
+	public boolean setBoolean(final String key, final boolean val) {
+		booleans.put(key, val);
+		return val;
+	}
+
+	@Override
+	public int getInt(final String key, final int def) {
+		Integer val = ints.get(key);
+		return val != null ? val : def;
+	}
+
+	@Override
+	public int setInt(final String key, final int val) {
+		ints.put(key, val);
+		return val;
+	}
+}
@@ -35,7 +35,7 @@ final class NounsViewer extends BaseViewer {
 	void setPuzzle(final Puzzle puzzle) {
 		this.puzzle = puzzle;
 
-		tblNouns.removeAllViews();
+		activity.viewPool.recycle(tblNouns);
 		if (puzzle == null) return;
 
 		updateAppDimensions();
@@ -50,9 +50,9 @@ final class NounsViewer extends BaseViewer {
 		int colWidth = Math.min((appWidth - colNumWidth - del) / (ncols - 1), colMaxWidth);
 
 		for (int irow = 0; irow < nrows; irow++) {
-			TableRow row = new TableRow(activity);
+			TableRow row = activity.viewPool.borrowRow();
 			for (int icol = 0; icol < ncols; icol++) {
-				TextView txt = new TextView(activity);
+				TextView txt = irow == 0 || icol == 0 ? activity.viewPool.borrowHeader() : activity.viewPool.borrowText();
 				if (icol > 0) {
 					txt.setWidth(colWidth);
 					NounType nounType = puzzle.nounTypes.get(icol - 1);
@@ -63,12 +63,10 @@ final class NounsViewer extends BaseViewer {
 					}
 				}
 				else {
-					txt.setTextAppearance(R.style.TableHeader);
 					txt.setWidth(colNumWidth);
 					txt.setGravity(Gravity.CENTER_HORIZONTAL);
 					if (irow > 0) setText(txt, irow); else txt.setText(" # ");
 				}
-				if (irow == 0) txt.setTextAppearance(R.style.TableHeader);
 				row.addView(txt);
 			}
 			tblNouns.addView(row);
@@ -0,0 +1,134 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Mark;
+import com.mysterymaster.puzzle.Noun;
+import com.mysterymaster.puzzle.NounType;
+import com.mysterymaster.puzzle.Puzzle;
+
+import java.util.Arrays;
+
+/**
+ * The Pair Table keeps the noun of each noun type that is paired with each noun.<br>
+ * The table is updated when a positive mark is entered or removed, so the chart can be built for any
+ * first column without searching the marks.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class PairTable {
+	/** Number of noun types. */
+	private final int m;
+
+	/** Number of nouns per type. */
+	private final int n;
+
+	/** One-based number of the paired noun, or zero, where num = pairs[(t1 * n + n1) * m + t2] for zero-based indexes. */
+	private final byte[] pairs;
+
+	/**
+	 * Constructor. No noun is paired.
+	 * @param puzzle Puzzle.
+	 */
+	PairTable(final Puzzle puzzle) {
+		m = puzzle.maxNounTypes;
+		n = puzzle.maxNouns;
+		pairs = new byte[m * n * m];
+	}
+
+	/** Returns the number of bytes used by the table. */
+	int size() {
+		return pairs.length;
+	}
+
+	/** Returns the index of the pair for the zero-based noun type and noun, and the other zero-based noun type. */
+	private int getIndex(final int t1, final int n1, final int t2) {
+		return (t1 * n + n1) * m + t2;
+	}
+
+	/**
+	 * Returns the one-based number of the noun of the other type paired with the noun, or zero.
+	 * @param t1 Zero-based noun type of the noun.
+	 * @param n1 Zero-based index of the noun.
+	 * @param t2 Zero-based other noun type.
+	 * @return Noun number, or zero.
+	 */
+	int get(final int t1, final int n1, final int t2) {
+		return pairs[getIndex(t1, n1, t2)];
+	}
+
+	/**
+	 * Returns the noun of the given type paired with the noun, or null.
+	 * @param noun1 Noun.
+	 * @param nounType2 Other noun type.
+	 * @return Noun, or null.
+	 */
+	Noun get(final Noun noun1, final NounType nounType2) {
+		int num = get(noun1.type.num - 1, noun1.num - 1, nounType2.num - 1);
+		return num > 0 ? nounType2.nouns.get(num - 1) : null;
+	}
+
+	/**
+	 * Pairs or unpairs the two nouns.
+	 * @param noun1 Noun 1.
+	 * @param noun2 Noun 2.
+	 * @param okPair True to pair the nouns, false to unpair them.
+	 */
+	void set(final Noun noun1, final Noun noun2, final boolean okPair) {
+		int t1 = noun1.type.num - 1;
+		int t2 = noun2.type.num - 1;
+		pairs[getIndex(t1, noun1.num - 1, t2)] = (byte) (okPair ? noun2.num : 0);
+		pairs[getIndex(t2, noun2.num - 1, t1)] = (byte) (okPair ? noun1.num : 0);
+	}
+
+	/**
+	 * Updates the table for the mark. Only a positive mark pairs two nouns.
+	 * @param noun1 Noun 1 of the mark.
+	 * @param noun2 Noun 2 of the mark.
+	 * @param verbNum Number of the verb of the mark.
+	 * @param okAdd True if the mark was entered, false if it was removed.
+	 * @return True if the table changed, otherwise false.
+	 */
+	boolean update(final Noun noun1, final Noun noun2, final int verbNum, final boolean okAdd) {
+		if (verbNum != Puzzle.Is.num) return false;
+		set(noun1, noun2, okAdd);
+		return true;
+	}
+
+	/** Unpairs every noun. */
+	void clear() {
+		Arrays.fill(pairs, (byte) 0);
+	}
+
+	/**
+	 * Rebuilds the table from the pairs of the nouns given by Mark.getPairNoun.<br>
+	 * Needed when a rule places nouns, since those pairs do not come from a single positive mark.
+	 * @param puzzle Puzzle.
+	 */
+	void load(final Puzzle puzzle) {
+		for (int t1 = 0; t1 < m; t1++) {
+			for (Noun noun1 : puzzle.nounTypes.get(t1).nouns) {
+				for (int t2 = 0; t2 < m; t2++) {
+					if (t2 == t1) continue;
+					Noun noun2 = Mark.getPairNoun(noun1, puzzle.nounTypes.get(t2));
+					pairs[getIndex(t1, noun1.num - 1, t2)] = (byte) (noun2 != null ? noun2.num : 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies the table into the given array, which must have at least size() bytes.
+	 * @param dst Destination array.
+	 */
+	void copyTo(final byte[] dst) {
+		System.arraycopy(pairs, 0, dst, 0, pairs.length);
+	}
+
+	/**
+	 * Copies the table from the given array, which must have been filled by copyTo.
+	 * @param src Source array.
+	 */
+	void copyFrom(final byte[] src) {
+		System.arraycopy(src, 0, pairs, 0, pairs.length);
+	}
+}
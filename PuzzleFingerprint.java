@@ -0,0 +1,98 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Fact;
+import com.mysterymaster.puzzle.Link;
+import com.mysterymaster.puzzle.Noun;
+import com.mysterymaster.puzzle.NounType;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzle.Rule;
+
+/**
+ * The Puzzle Fingerprint is a 64-bit FNV-1a hash of the version code of the app and the structure of a puzzle:
+ * its title, noun types, nouns, links with the verb of every pair, facts, and rules.<br>
+ * Any change to the definition of a puzzle gives a different fingerprint, so results keyed by it
+ * are invalidated automatically.<br>
+ * Note: The logic of a fact or rule cannot be hashed, so each is represented by its number and name.
+ * The logic can only change with a new build of the app, so the version code is hashed first.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class PuzzleFingerprint {
+	static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private PuzzleFingerprint() { }
+
+	/**
+	 * Returns the fingerprint of the puzzle.
+	 * @param puzzle Puzzle.
+	 * @return Fingerprint.
+	 */
+	static long of(final Puzzle puzzle) {
+		long h = FNV_OFFSET;
+		h = hash(h, BuildConfig.VERSION_CODE);
+		h = hash(h, puzzle.myTitle);
+
+		h = hash(h, puzzle.maxNounTypes);
+		h = hash(h, puzzle.maxNouns);
+		for (NounType nounType : puzzle.nounTypes) {
+			h = hash(h, nounType.name);
+			for (Noun noun : nounType.nouns) {
+				h = hash(h, noun.name);
+				h = hash(h, noun.title);
+			}
+		}
+
+		h = hash(h, puzzle.maxLinks);
+		for (Link link : puzzle.links) {
+			h = hash(h, link.name);
+			h = hash(h, link.nounType.num);
+			h = hash(h, link.oneToOne ? 1 : 0);
+			for (Noun noun1 : link.nounType.nouns) {
+				for (Noun noun2 : link.nounType.nouns) h = hash(h, link.getVerb(noun1, noun2).num);
+			}
+		}
+
+		h = hash(h, puzzle.maxFacts);
+		for (Fact fact : puzzle.facts) {
+			h = hash(h, fact.num);
+			h = hash(h, fact.name);
+		}
+
+		h = hash(h, puzzle.maxRules);
+		for (Rule rule : puzzle.rules) {
+			h = hash(h, rule.num);
+			h = hash(h, rule.name);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the fingerprint as 16 hexadecimal digits.
+	 * @param fingerprint Fingerprint.
+	 * @return String.
+	 */
+	static String toHex(final long fingerprint) {
+		String hex = Long.toHexString(fingerprint);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+
+	/** Adds the characters of the string to the hash. A null string is hashed as a single marker. */
+	static long hash(long h, final String str) {
+		if (str == null) return hash(h, -1);
+		h = hash(h, str.length());
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			h = (h ^ (c & 0xff)) * FNV_PRIME;
+			h = (h ^ (c >>> 8)) * FNV_PRIME;
+		}
+		return h;
+	}
+
+	/** Adds the four bytes of the integer to the hash. */
+	static long hash(long h, final int val) {
+		for (int shift = 0; shift < 32; shift += 8) h = (h ^ ((val >>> shift) & 0xff)) * FNV_PRIME;
+		return h;
+	}
+}
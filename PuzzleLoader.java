@@ -0,0 +1,106 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzles.Puzzles;
+
+/**
+ * The Puzzle Loader creates and validates the selected puzzle on the worker thread of the solver holder.<br>
+ * The puzzle is validated by the solver that will solve it, on the thread that owns that solver, so the
+ * validation never runs at the same time as a solver action. Each load has a sequence number, and only the latest one is delivered.<br>
+ * Note: Only the selected puzzle is created. Puzzles.getPuzzleByNum sets the static verbs of the Puzzle class,
+ * so creating any other puzzle would change the verbs of the puzzle on display.<br>
+ * Note: The validation may also set up the puzzle for the solver, so the validated puzzle is kept with its status
+ * by the fingerprint of the puzzle. A puzzle whose definition has not changed is validated only once by the solver
+ * of the holder, and its validated object is delivered instead of the one just created. Both objects were created
+ * by Puzzles.getPuzzleByNum for the same puzzle, so the static verbs of the Puzzle class are the same.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class PuzzleLoader {
+	/** Puzzle that was validated by the solver of the holder, with the status returned by puzzle.validate. */
+	static final class Validated {
+		final Puzzle puzzle;
+		final int rs;
+
+		Validated(final Puzzle puzzle, final int rs) {
+			this.puzzle = puzzle;
+			this.rs = rs;
+		}
+	}
+
+	/** Main Activity. */
+	private final MainActivity activity;
+
+	/** Sequence number of the latest load. Written on the UI thread. */
+	private volatile int seq = 0;
+
+	/** One-based number of the puzzle of the latest load, or of the puzzle the solver holder already has. Used on the UI thread only. */
+	private int puzzleNum;
+
+	/**
+	 * Constructor.
+	 * @param activity Main Activity.
+	 */
+	PuzzleLoader(final MainActivity activity) {
+		this.activity = activity;
+		puzzleNum = activity.holder.puzzleNum;
+	}
+
+	/**
+	 * Loads the puzzle on the worker thread, and passes it to activity.setPuzzle on the UI thread.<br>
+	 * A load that is replaced by a newer one before it completes is not delivered. Called by the puzzle picker.
+	 * @param puzzleNum One-based number of the puzzle, or zero for no puzzle.
+	 */
+	void load(final int puzzleNum) {
+		final int mySeq = ++seq;
+		this.puzzleNum = puzzleNum;
+		if (puzzleNum == 0) {
+			activity.holder.puzzleNum = 0;
+			activity.setPuzzle(null, 0);
+			return;
+		}
+
+		activity.sayLoading(Puzzles.titles[puzzleNum]);
+		final SolverHolder holder = activity.holder;
+		holder.executor.submit(() -> {
+			if (mySeq != seq) return;
+			final Validated validated = validate(holder, Puzzles.getPuzzleByNum(puzzleNum));
+			activity.runOnUiThread(() -> {
+				if (mySeq != seq) return;
+				holder.puzzleNum = puzzleNum;
+				activity.setPuzzle(validated.puzzle, validated.rs);
+			});
+		});
+	}
+
+	/**
+	 * Returns the validated puzzle with the same fingerprint as the puzzle, or validates the puzzle and keeps it.
+	 * Called by load on the worker thread.
+	 * @param holder Solver holder.
+	 * @param puzzle Puzzle that was just created.
+	 * @return Validated puzzle.
+	 */
+	private static Validated validate(final SolverHolder holder, final Puzzle puzzle) {
+		long fingerprint = PuzzleFingerprint.of(puzzle);
+		Validated validated = holder.validated.get(fingerprint);
+		if (validated == null) {
+			validated = new Validated(puzzle, puzzle.validate(holder.solver));
+			holder.validated.put(fingerprint, validated);
+		}
+		return validated;
+	}
+
+	/**
+	 * Returns the number of the puzzle of the latest load, which may not be delivered yet. Called by the puzzle picker.
+	 * @return One-based number of the puzzle, zero for no puzzle, or -1 before the first puzzle is loaded.
+	 */
+	int getPuzzleNum() {
+		return puzzleNum;
+	}
+
+	/** Drops the load in progress. The worker thread belongs to the holder, so it is not stopped. Called when the activity is destroyed. */
+	void shutdown() {
+		++seq;
+	}
+}
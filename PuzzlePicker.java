@@ -5,13 +5,12 @@ import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Spinner;
 
-import com.mysterymaster.puzzle.Puzzle;
 import com.mysterymaster.puzzles.Puzzles;
 
 /**
  * The Puzzle Picker class manages what puzzle is selected by the user.<br>
  * Copyright (c) 2018 mysterymaster.com. All rights reserved.
- * @version 2018-05-03
+ * @version 2018-05-17
  * @author Michael Benson <michael.benson@mysterymaster.com>
  */
 final class PuzzlePicker {
@@ -40,10 +39,11 @@ final class PuzzlePicker {
 		ddlPuzzles.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
 			@Override
 			public void onItemSelected(AdapterView<?> adapterView, View view, int pos, long id) {
-				Puzzle puzzle = null;
+				// The recreated activity selects the puzzle the solver already has. A puzzle picked while
+				// another one loads is compared with the latest load, so the pending load is replaced.
+				if (pos == activity.puzzleLoader.getPuzzleNum()) return;
 				activity.locker.setInt("puzzleNum", pos);
-				if (pos > 0) puzzle = Puzzles.getPuzzleByNum(pos);
-				activity.setPuzzle(puzzle);
+				activity.puzzleLoader.load(pos);
 			}
 
 			@Override
@@ -8,10 +8,11 @@ import android.widget.TableLayout;
 import android.widget.TableRow;
 import android.widget.TextView;
 
-import com.mysterymaster.puzzle.Mark;
 import com.mysterymaster.puzzle.Puzzle;
 import com.mysterymaster.puzzle.Rule;
 
+import java.util.Arrays;
+
 /**
  * The Rules Viewer class manages the Rules form.<br>
  * Copyright (c) 2018 mysterymaster.com. All rights reserved.
@@ -40,15 +41,31 @@ final class RulesViewer extends BaseViewer {
 		initForm();
 	}
 
-	/** Resets the form. Called by tabViewer.reset. */
-	void reset() {
-		if (puzzle != null) for (Rule rule : puzzle.rules) update(rule);
-	}
+	/** Hits displayed for each rule, where hits = shownHits[rule.num - 1]. */
+	private int[] shownHits = new int[0];
+
+	/** Enabled flag displayed for each rule, where enabled = shownEnabled[rule.num - 1]. */
+	private boolean[] shownEnabled = new boolean[0];
 
-	/** Creates and populates the Rules form when a puzzle is loaded. Called by setPuzzle. */
+	/** Counters displayed by the form, or null. */
+	private FormCounters shownCounters = null;
+
+	/**
+	 * Creates and populates the Rules form when a puzzle is loaded. Called by setPuzzle.<br>
+	 * Every rule shows zero hits and is enabled until the counters are flushed.
+	 */
 	private void initForm() {
-		tblRules.removeAllViews();
-		if (puzzle == null || puzzle.maxRules == 0) return;
+		activity.viewPool.recycle(tblRules);
+		shownCounters = null;
+		if (puzzle == null || puzzle.maxRules == 0) {
+			shownHits = new int[0];
+			shownEnabled = new boolean[0];
+			return;
+		}
+
+		shownHits = new int[puzzle.maxRules];
+		shownEnabled = new boolean[puzzle.maxRules];
+		Arrays.fill(shownEnabled, true);
 
 		final String[] colHeaders = new String[]{"#", "X", "Hits", "Name"};
 		final int[] colLengths = new int[]{colNumWidth, colChkWidth, colHitsWidth, 1300};
@@ -58,17 +75,16 @@ final class RulesViewer extends BaseViewer {
 		final int nrows = puzzle.maxRules + 1;
 
 		for (int irow = 0; irow < nrows; irow++) {
-			TableRow row = new TableRow(activity);
+			TableRow row = activity.viewPool.borrowRow();
 			for (int icol = 0; icol < ncols; icol++) {
 				TextView fld;
 				if (irow > 0) {
 					Rule rule = puzzle.rules.get(irow - 1);
-					fld = icol != 1 ? new TextView(activity) : new CheckBox(activity);
-					if (icol == 0) fld.setTextAppearance(R.style.TableHeader);
+					fld = icol == 0 ? activity.viewPool.borrowHeader() : icol != 1 ? activity.viewPool.borrowText() : activity.viewPool.borrowCheck();
 					switch (icol) {
 						case 0 : setText(fld, rule.num); break;
-						case 1 : ((CheckBox) fld).setChecked(rule.enabled); break;
-						case 2 : setText(fld, rule.hits); break;
+						case 1 : ((CheckBox) fld).setChecked(true); break;
+						case 2 : setText(fld, 0); break;
 						case 3 : fld.setText(rule.name);
 					}
 					if (icol == 3) {
@@ -77,8 +93,7 @@ final class RulesViewer extends BaseViewer {
 					}
 				}
 				else {
-					fld = new TextView(activity);
-					fld.setTextAppearance(R.style.TableHeader);
+					fld = activity.viewPool.borrowHeader();
 					fld.setText(colHeaders[icol]);
 				}
 				fld.setWidth(colLengths[icol]);
@@ -90,31 +105,40 @@ final class RulesViewer extends BaseViewer {
 	}
 
 	/**
-	 * Updates the form when the mark is appended. Called by tabViewer.sayMarkAddition.
-	 * @param mark Mark.
+	 * Checks the rules once for the counters published since the last frame. Called by tabbyViewer.catchUp, flush.<br>
+	 * Note: A mark does not say which rules it changed, so each rule's hits and enabled flag are compared
+	 * with the values on display. Only the rows of the rules that changed are repainted.
+	 * @param counters Latest counters of the solver holder.
 	 */
-	void update(final Mark mark) {
-		// TODO: Update only if a rule triggered this mark.
-		for (Rule rule : puzzle.rules) update(rule);
+	void flush(final FormCounters counters) {
+		if (counters == shownCounters || counters.ruleHits.length != shownHits.length) return;
+		shownCounters = counters;
+		for (int i = 0; i < shownHits.length; i++) update(i, counters.ruleHits[i], counters.ruleEnabled[i]);
 	}
 
 	/**
-	 * Updates the form for the given rule. Called by reset, tabViewer.sayPlacers.
-	 * @param rule Rule.
+	 * Updates the form for the given rule.
+	 * @param i Zero-based index of the rule.
+	 * @param hits Hits of the rule.
+	 * @param enabled Enabled flag of the rule.
 	 */
-	void update(final Rule rule) {
-		View view = tblRules.getChildAt(rule.num);
+	private void update(final int i, final int hits, final boolean enabled) {
+		if (shownHits[i] == hits && shownEnabled[i] == enabled) return;
+		shownHits[i] = hits;
+		shownEnabled[i] = enabled;
+
+		View view = tblRules.getChildAt(i + 1);
 		if (view instanceof TableRow) {
 			TableRow row = (TableRow) view;
 			view = row.getChildAt(1);
 			if (view instanceof CheckBox) {
 				CheckBox chk = (CheckBox) view;
-				chk.setChecked(rule.enabled);
+				chk.setChecked(enabled);
 			}
 			view = row.getChildAt(2);
 			if (view instanceof TextView) {
 				TextView txt = (TextView) view;
-				setText(txt, rule.hits);
+				setText(txt, hits);
 			}
 		}
 	}
@@ -0,0 +1,463 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Mark;
+import com.mysterymaster.puzzle.Noun;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.solver.Spots;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The Solution Cache keeps the stream of marks of each solved puzzle in a file, so the solution can be
+ * displayed again without running the solver.<br>
+ * A stream is keyed by the fingerprint of the puzzle and the setup options that change how the puzzle is solved.
+ * The fingerprint includes the version code of the app, so the files saved by another version are deleted
+ * before the first file is saved.<br>
+ * Each mark is stored as its operation, number, nouns, verb, valid flag, level, type, and name. The levels and
+ * types are stored once in a string table. The stream ends with the board counters, the counters of the Facts,
+ * Rules, and Stats forms, and the final message.<br>
+ * A stream is read on the worker thread into a solution, which the activity replays on the UI thread.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class SolutionCache {
+	/** Version of the stream format. A file with another version is ignored. */
+	private static final int VERSION = 1;
+
+	// Operations in the stream.
+	private static final byte OP_END = 0;
+	private static final byte OP_ADD = 1;
+	private static final byte OP_REMOVE = 2;
+	private static final byte OP_VALID = 3;
+
+	/** Keys of the setup options that change the marks entered by the solver. See the SetupViewer. */
+	private static final String[] SOLVE_KEYS = {"okRules", "okTriggers",
+		"okLevel0", "okLevel1", "okLevel2", "okLevel3", "okLevel4",
+		"okLaw0", "okLaw1", "okLaw2", "okLaw3", "okLaw4", "okLaw5"};
+
+	/** Keys of the setup options that pause the solver. See the SetupViewer. */
+	static final String[] PAUSE_KEYS = {"okPauseAll", "okPauseLevel", "okPauseSolution", "okPauseViolation",
+		"okPauseMark", "okPauseTrigger", "okPauseGuess", "okPausePlacers"};
+
+	/** Folder for the cache files. */
+	private final File dir;
+
+	/** True if the files saved by another version of the app were deleted. Used on the worker thread only. */
+	private boolean okSwept = false;
+
+	/**
+	 * Constructor.
+	 * @param dir Folder for the cache files. It is created when the first file is saved.
+	 */
+	SolutionCache(final File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Returns the key for the puzzle with the current setup options.
+	 * @param puzzle Puzzle.
+	 * @param spots Setup options.
+	 * @return Key.
+	 */
+	static String getKey(final Puzzle puzzle, final Spots spots) {
+		int bits = 0;
+		for (int i = 0; i < SOLVE_KEYS.length; i++) {
+			if (spots.getValue(SOLVE_KEYS[i])) bits |= 1 << i;
+		}
+		return PuzzleFingerprint.toHex(PuzzleFingerprint.of(puzzle)) + "-" + Integer.toHexString(bits);
+	}
+
+	/**
+	 * Returns true if the setup options pause the solver, so the solution cannot be replayed.
+	 * @param spots Setup options.
+	 * @return Boolean.
+	 */
+	static boolean isPausing(final Spots spots) {
+		for (String key : PAUSE_KEYS) {
+			if (spots.getValue(key)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the stream saved for the key, or null.
+	 * @param key Key.
+	 * @return Stream, or null.
+	 */
+	byte[] load(final String key) {
+		File file = new File(dir, key + ".bin");
+		if (!file.isFile()) return null;
+		try (InputStream in = new FileInputStream(file)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) > 0) bytes.write(buf, 0, n);
+			return bytes.toByteArray();
+		}
+		catch (IOException e) {
+			BaseViewer.print("solutionCache.load " + key + " " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Saves the stream for the key.
+	 * @param key Key.
+	 * @param stream Stream.
+	 */
+	void save(final String key, final byte[] stream) {
+		if (!dir.isDirectory() && !dir.mkdirs()) return;
+		if (!okSwept) sweep();
+		File tmp = new File(dir, key + ".tmp");
+		try (FileOutputStream out = new FileOutputStream(tmp)) {
+			out.write(stream);
+		}
+		catch (IOException e) {
+			BaseViewer.print("solutionCache.save " + key + " " + e);
+			return;
+		}
+		if (!tmp.renameTo(new File(dir, key + ".bin"))) tmp.delete();
+	}
+
+	/**
+	 * Deletes the files saved by another version of the app, since their keys can no longer match.<br>
+	 * The version code is kept in a marker file in the folder. Called by save.
+	 */
+	private void sweep() {
+		okSwept = true;
+		File marker = new File(dir, "version");
+		try (DataInputStream in = new DataInputStream(new FileInputStream(marker))) {
+			if (in.readInt() == BuildConfig.VERSION_CODE) return;
+		}
+		catch (IOException e) {
+			// No marker, so the files are from an older version.
+		}
+
+		File[] files = dir.listFiles();
+		if (files != null) for (File file : files) file.delete();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(marker))) {
+			out.writeInt(BuildConfig.VERSION_CODE);
+		}
+		catch (IOException e) {
+			BaseViewer.print("solutionCache.sweep " + e);
+		}
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Writer">
+
+	/**
+	 * The Writer records the marks as the solver enters, removes, and validates them. Used on the worker thread only.
+	 */
+	static final class Writer {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out;
+
+		/** Index of each level and type string written so far. */
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		/** True if the solver found a solution. */
+		private boolean okSolution = false;
+
+		/** Constructor. */
+		Writer() {
+			DataOutputStream data;
+			try {
+				data = new DataOutputStream(new GZIPOutputStream(bytes));
+				data.writeInt(VERSION);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			out = data;
+		}
+
+		/** Records that the solver found a solution. Called by activity.say. */
+		void saySolution() {
+			okSolution = true;
+		}
+
+		/** Returns true if the solver found a solution, otherwise false. */
+		boolean hasSolution() {
+			return okSolution;
+		}
+
+		/**
+		 * Records the mark.
+		 * @param kind Kind of event, either Dispatcher.ADD_MARK, REMOVE_MARK, or VALID_MARK.
+		 * @param mark Mark.
+		 */
+		void record(final int kind, final Mark mark) {
+			try {
+				switch (kind) {
+					case Dispatcher.ADD_MARK:
+						out.writeByte(OP_ADD);
+						out.writeInt(mark.num);
+						writeNoun(mark.noun1);
+						writeNoun(mark.noun2);
+						out.writeByte(mark.verb.num);
+						out.writeBoolean(mark.valid);
+						writeString(mark.levelAsString);
+						writeString(mark.type.toString());
+						out.writeUTF(mark.name);
+						break;
+					case Dispatcher.REMOVE_MARK:
+						out.writeByte(OP_REMOVE);
+						out.writeInt(mark.num);
+						writeNoun(mark.noun1);
+						writeNoun(mark.noun2);
+						break;
+					case Dispatcher.VALID_MARK:
+						out.writeByte(OP_VALID);
+						out.writeInt(mark.num);
+						out.writeBoolean(mark.valid);
+						break;
+				}
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Ends the stream and returns it.
+		 * @param counters Board counters when the solver stopped.
+		 * @param forms Counters of the Facts, Rules, and Stats forms when the solver stopped.
+		 * @param msg Message when the solver stopped.
+		 * @return Stream.
+		 */
+		byte[] finish(final BoardCounters counters, final FormCounters forms, final String msg) {
+			try {
+				out.writeByte(OP_END);
+				out.writeInt(counters.numGuesses);
+				out.writeInt(counters.numPairs);
+				out.writeInt(counters.numMarks);
+				out.writeInt(counters.numFacts);
+				out.writeInt(counters.numFactHits);
+				out.writeInt(counters.numRules);
+				out.writeInt(counters.numRuleHits);
+				writeInts(forms.factHits);
+				writeBooleans(forms.factEnabled);
+				writeInts(forms.ruleHits);
+				writeBooleans(forms.ruleEnabled);
+				writeCounts(forms.levelPairs);
+				writeCounts(forms.levelMarks);
+				out.writeUTF(msg != null ? msg : "");
+				out.close();
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return bytes.toByteArray();
+		}
+
+		private void writeInts(final int[] vals) throws IOException {
+			out.writeInt(vals.length);
+			for (int val : vals) out.writeInt(val);
+		}
+
+		private void writeBooleans(final boolean[] vals) throws IOException {
+			out.writeInt(vals.length);
+			for (boolean val : vals) out.writeBoolean(val);
+		}
+
+		private void writeCounts(final int[][] counts) throws IOException {
+			out.writeInt(counts.length);
+			for (int[] vals : counts) writeInts(vals);
+		}
+
+		private void writeNoun(final Noun noun) throws IOException {
+			out.writeByte(noun.type.num);
+			out.writeByte(noun.num);
+		}
+
+		/** Writes the index of the string, followed by the string the first time it is written. */
+		private void writeString(final String str) throws IOException {
+			Integer index = strings.get(str);
+			if (index != null) {
+				out.writeShort(index);
+				return;
+			}
+			out.writeShort(strings.size());
+			out.writeUTF(str);
+			strings.put(str, strings.size());
+		}
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Reader">
+
+	/** The Replay receives the marks of a solution. Implemented by the activity. */
+	interface Replay {
+		void replayAddMark(int num, Noun noun1, Noun noun2, int verbNum, boolean valid, String level, String type, String name);
+		void replayRemoveMark(int num, Noun noun1, Noun noun2);
+		void replayValidMark(int num, boolean valid);
+		void replayStopped(BoardCounters counters, FormCounters forms, String msg);
+	}
+
+	/** Operation on a mark read from a stream. The fields that do not apply to the operation are zero or null. */
+	private static final class Step {
+		final byte op;
+		final int num;
+		final Noun noun1;
+		final Noun noun2;
+		final int verbNum;
+		final boolean valid;
+		final String level;
+		final String type;
+		final String name;
+
+		Step(final byte op, final int num, final Noun noun1, final Noun noun2, final int verbNum, final boolean valid,
+				final String level, final String type, final String name) {
+			this.op = op;
+			this.num = num;
+			this.noun1 = noun1;
+			this.noun2 = noun2;
+			this.verbNum = verbNum;
+			this.valid = valid;
+			this.level = level;
+			this.type = type;
+			this.name = name;
+		}
+	}
+
+	/** The Solution is a stream that was read on the worker thread. It is replayed on the UI thread. */
+	static final class Solution {
+		private final List<Step> steps;
+		private final BoardCounters counters;
+		private final FormCounters forms;
+		private final String msg;
+
+		private Solution(final List<Step> steps, final BoardCounters counters, final FormCounters forms, final String msg) {
+			this.steps = steps;
+			this.counters = counters;
+			this.forms = forms;
+			this.msg = msg;
+		}
+
+		/**
+		 * Passes each mark to the replay, followed by the counters. Called by activity.replaySolution.
+		 * @param replay Replay.
+		 */
+		void replay(final Replay replay) {
+			for (Step step : steps) {
+				switch (step.op) {
+					case OP_ADD:
+						replay.replayAddMark(step.num, step.noun1, step.noun2, step.verbNum, step.valid, step.level, step.type, step.name);
+						break;
+					case OP_REMOVE:
+						replay.replayRemoveMark(step.num, step.noun1, step.noun2);
+						break;
+					case OP_VALID:
+						replay.replayValidMark(step.num, step.valid);
+						break;
+				}
+			}
+			replay.replayStopped(counters, forms, msg);
+		}
+	}
+
+	/**
+	 * Reads the stream into a solution. Called on the worker thread.
+	 * @param stream Stream.
+	 * @param puzzle Puzzle the stream was recorded for.
+	 * @return Solution, or null if the stream cannot be read.
+	 */
+	static Solution read(final byte[] stream, final Puzzle puzzle) {
+		try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(stream)))) {
+			if (in.readInt() != VERSION) return null;
+			List<String> strings = new ArrayList<>();
+			List<Step> steps = new ArrayList<>();
+			while (true) {
+				byte op = in.readByte();
+				switch (op) {
+					case OP_ADD: {
+						int num = in.readInt();
+						Noun noun1 = readNoun(in, puzzle);
+						Noun noun2 = readNoun(in, puzzle);
+						int verbNum = in.readByte();
+						boolean valid = in.readBoolean();
+						String level = readString(in, strings);
+						String type = readString(in, strings);
+						String name = in.readUTF();
+						steps.add(new Step(op, num, noun1, noun2, verbNum, valid, level, type, name));
+						break;
+					}
+					case OP_REMOVE: {
+						int num = in.readInt();
+						Noun noun1 = readNoun(in, puzzle);
+						Noun noun2 = readNoun(in, puzzle);
+						steps.add(new Step(op, num, noun1, noun2, 0, false, null, null, null));
+						break;
+					}
+					case OP_VALID:
+						steps.add(new Step(op, in.readInt(), null, null, 0, in.readBoolean(), null, null, null));
+						break;
+					case OP_END: {
+						BoardCounters counters = new BoardCounters(in.readInt(), in.readInt(), in.readInt(),
+							in.readInt(), in.readInt(), in.readInt(), in.readInt());
+						FormCounters forms = new FormCounters(readInts(in), readBooleans(in), readInts(in), readBooleans(in),
+							readCounts(in), readCounts(in));
+						if (forms.factHits.length != puzzle.facts.size() || forms.ruleHits.length != puzzle.rules.size()) return null;
+						return new Solution(steps, counters, forms, in.readUTF());
+					}
+					default:
+						return null;
+				}
+			}
+		}
+		catch (IOException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			BaseViewer.print("solutionCache.read " + e);
+			return null;
+		}
+	}
+
+	private static int[] readInts(final DataInputStream in) throws IOException {
+		int[] vals = new int[in.readInt()];
+		for (int i = 0; i < vals.length; i++) vals[i] = in.readInt();
+		return vals;
+	}
+
+	private static boolean[] readBooleans(final DataInputStream in) throws IOException {
+		boolean[] vals = new boolean[in.readInt()];
+		for (int i = 0; i < vals.length; i++) vals[i] = in.readBoolean();
+		return vals;
+	}
+
+	private static int[][] readCounts(final DataInputStream in) throws IOException {
+		int[][] counts = new int[in.readInt()][];
+		for (int i = 0; i < counts.length; i++) counts[i] = readInts(in);
+		return counts;
+	}
+
+	private static Noun readNoun(final DataInputStream in, final Puzzle puzzle) throws IOException {
+		int typeNum = in.readByte();
+		int num = in.readByte();
+		return puzzle.nounTypes.get(typeNum - 1).nouns.get(num - 1);
+	}
+
+	private static String readString(final DataInputStream in, final List<String> strings) throws IOException {
+		int index = in.readShort();
+		if (index < strings.size()) return strings.get(index);
+		String str = in.readUTF();
+		strings.add(str);
+		return str;
+	}
+
+	// </editor-fold>
+}
@@ -0,0 +1,193 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.solver.LevelCounter;
+import com.mysterymaster.solver.Solver;
+
+import java.io.PrintStream;
+
+/**
+ * The Solve Report holds the timing and counters of one headless solve.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class SolveReport {
+	/** One-based number of the puzzle. */
+	final int puzzleNum;
+
+	/** Title of the puzzle. */
+	final String title;
+
+	/** Status returned by puzzle.validate, where zero means the puzzle is valid. */
+	final int rs;
+
+	/** Wall time of the solve in nanoseconds. Zero if the puzzle is not valid. */
+	final long nanos;
+
+	final int numMarks;
+	final int numPairs;
+	final int numGuesses;
+	final int numFactHits;
+	final int numRuleHits;
+
+	/** Pairs by level, where counts = levelPairs[level]. */
+	final int[][] levelPairs;
+
+	/** Marks by level, where counts = levelMarks[level]. */
+	final int[][] levelMarks;
+
+	/** Prefix of the line written by toLine. Other lines written by a worker process are ignored. */
+	static final String LINE_PREFIX = "report";
+
+	/**
+	 * Constructor. Copies the counters of the solver after the solve.
+	 * @param puzzleNum One-based number of the puzzle.
+	 * @param title Title of the puzzle.
+	 * @param rs Status returned by puzzle.validate.
+	 * @param nanos Wall time of the solve in nanoseconds.
+	 * @param solver Solver.
+	 */
+	SolveReport(final int puzzleNum, final String title, final int rs, final long nanos, final Solver solver) {
+		this.puzzleNum = puzzleNum;
+		this.title = title;
+		this.rs = rs;
+		this.nanos = nanos;
+		numMarks = solver.numMarks;
+		numPairs = solver.numPairs;
+		numGuesses = solver.numGuesses;
+		numFactHits = solver.numFactHits;
+		numRuleHits = solver.numRuleHits;
+		levelPairs = getCounts(solver.stats.levelPairs);
+		levelMarks = getCounts(solver.stats.levelMarks);
+	}
+
+	/** Constructor. Called by parseLine. */
+	private SolveReport(final int puzzleNum, final String title, final int rs, final long nanos, final int numMarks,
+			final int numPairs, final int numGuesses, final int numFactHits, final int numRuleHits,
+			final int[][] levelPairs, final int[][] levelMarks) {
+		this.puzzleNum = puzzleNum;
+		this.title = title;
+		this.rs = rs;
+		this.nanos = nanos;
+		this.numMarks = numMarks;
+		this.numPairs = numPairs;
+		this.numGuesses = numGuesses;
+		this.numFactHits = numFactHits;
+		this.numRuleHits = numRuleHits;
+		this.levelPairs = levelPairs;
+		this.levelMarks = levelMarks;
+	}
+
+	/**
+	 * Returns the report as one line of text that parseLine reads back. The title is last, since it may contain spaces.
+	 * @return Line.
+	 */
+	String toLine() {
+		StringBuilder line = new StringBuilder(LINE_PREFIX);
+		line.append(' ').append(puzzleNum).append(' ').append(rs).append(' ').append(nanos);
+		line.append(' ').append(numMarks).append(' ').append(numPairs).append(' ').append(numGuesses);
+		line.append(' ').append(numFactHits).append(' ').append(numRuleHits);
+		appendCounts(line, levelPairs);
+		appendCounts(line, levelMarks);
+		return line.append(' ').append(title).toString();
+	}
+
+	/** Appends the number of rows and columns of the counts, followed by the counts. */
+	private static void appendCounts(final StringBuilder line, final int[][] counts) {
+		line.append(' ').append(counts.length).append(' ').append(counts.length > 0 ? counts[0].length : 0);
+		for (int[] row : counts) for (int count : row) line.append(' ').append(count);
+	}
+
+	/**
+	 * Returns the report written by toLine, or null if the line is not a report.
+	 * @param line Line.
+	 * @return Solve Report, or null.
+	 */
+	static SolveReport parseLine(final String line) {
+		if (!line.startsWith(LINE_PREFIX + " ")) return null;
+		String[] fields = line.split(" ");
+		int[] i = {1};
+		int puzzleNum = Integer.parseInt(fields[i[0]++]);
+		int rs = Integer.parseInt(fields[i[0]++]);
+		long nanos = Long.parseLong(fields[i[0]++]);
+		int numMarks = Integer.parseInt(fields[i[0]++]);
+		int numPairs = Integer.parseInt(fields[i[0]++]);
+		int numGuesses = Integer.parseInt(fields[i[0]++]);
+		int numFactHits = Integer.parseInt(fields[i[0]++]);
+		int numRuleHits = Integer.parseInt(fields[i[0]++]);
+		int[][] levelPairs = parseCounts(fields, i);
+		int[][] levelMarks = parseCounts(fields, i);
+		StringBuilder title = new StringBuilder();
+		for (int j = i[0]; j < fields.length; j++) title.append(j > i[0] ? " " : "").append(fields[j]);
+		return new SolveReport(puzzleNum, title.toString(), rs, nanos, numMarks, numPairs, numGuesses,
+			numFactHits, numRuleHits, levelPairs, levelMarks);
+	}
+
+	/**
+	 * Returns the counts written by appendCounts.
+	 * @param fields Fields of the line.
+	 * @param i Index of the next field, where i[0] is advanced past the counts.
+	 * @return 2D array of counts.
+	 */
+	private static int[][] parseCounts(final String[] fields, final int[] i) {
+		int nrows = Integer.parseInt(fields[i[0]++]);
+		int ncols = Integer.parseInt(fields[i[0]++]);
+		int[][] counts = new int[nrows][ncols];
+		for (int[] row : counts) for (int j = 0; j < ncols; j++) row[j] = Integer.parseInt(fields[i[0]++]);
+		return counts;
+	}
+
+	/**
+	 * Returns a copy of the counts for each level counter.
+	 * @param levelCounters Level counters.
+	 * @return 2D array of counts.
+	 */
+	private static int[][] getCounts(final LevelCounter[] levelCounters) {
+		int[][] counts = new int[levelCounters.length][];
+		for (int i = 0; i < levelCounters.length; i++) counts[i] = levelCounters[i].getCounts().clone();
+		return counts;
+	}
+
+	/** Returns the wall time in milliseconds. */
+	double getMillis() {
+		return nanos / 1e6;
+	}
+
+	/**
+	 * Prints the report.
+	 * @param out Output.
+	 */
+	void print(final PrintStream out) {
+		out.printf("Puzzle %d: %s%n", puzzleNum, title);
+		if (rs != 0) {
+			out.printf("  Invalid puzzle rs=%d%n", rs);
+			return;
+		}
+		out.printf("  Time %.3f ms, marks %d, pairs %d, guesses %d, fact hits %d, rule hits %d%n",
+			getMillis(), numMarks, numPairs, numGuesses, numFactHits, numRuleHits);
+		printTable(out, "Pairs By Level", levelPairs);
+		printTable(out, "Marks By Level", levelMarks);
+	}
+
+	/**
+	 * Prints the level counter table with the same headers as the Stats form.
+	 * @param out Output.
+	 * @param caption Caption of the table.
+	 * @param counts 2D array of counts.
+	 */
+	static void printTable(final PrintStream out, final String caption, final int[][] counts) {
+		String[] colHeaders = LevelCounter.getColHeaders();
+		String[] rowHeaders = LevelCounter.getRowHeaders();
+
+		out.printf("  %s%n", caption);
+		StringBuilder line = new StringBuilder("  ");
+		for (String colHeader : colHeaders) line.append(String.format("%8s", colHeader));
+		out.println(line);
+		for (int irow = 0; irow < counts.length; irow++) {
+			line.setLength(0);
+			line.append("  ").append(String.format("%8s", rowHeaders[irow + 1]));
+			for (int count : counts[irow]) line.append(String.format("%8d", count));
+			out.println(line);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzles.Puzzles;
+import com.mysterymaster.solver.Solver;
+import com.mysterymaster.solver.Spots;
+
+import java.io.PrintStream;
+
+/**
+ * The Solve Runner solves puzzles from the command line without the Android UI, and prints their reports.<br>
+ * Usage: SolveRunner [-v] puzzleNum...<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class SolveRunner {
+	private SolveRunner() {}
+
+	/**
+	 * Returns the setup options stored in memory with all pauses disabled.
+	 * @return Spots.
+	 */
+	static Spots getSpots() {
+		Spots spots = new Spots(new MemoryLocker());
+		for (String key : SolutionCache.PAUSE_KEYS) spots.setValue(key, false);
+		return spots;
+	}
+
+	/**
+	 * Solves the puzzle with its own solver and headless viewer, and returns the report.<br>
+	 * The solver's thread is run on the calling thread, so the time excludes starting a thread.
+	 * @param puzzleNum One-based number of the puzzle. See Puzzles.titles.
+	 * @param out Output for the solver messages, or null.
+	 * @return Solve Report.
+	 */
+	static SolveReport solve(final int puzzleNum, final PrintStream out) {
+		Solver solver = new Solver(new HeadlessViewer(out), getSpots());
+		Puzzle puzzle = Puzzles.getPuzzleByNum(puzzleNum);
+		int rs = puzzle.validate(solver);
+		if (rs != 0) return new SolveReport(puzzleNum, puzzle.myTitle, rs, 0, solver);
+
+		solver.setPuzzle(puzzle);
+		solver.reset();
+
+		long t0 = System.nanoTime();
+		run(solver.getThread(0));
+		long nanos = System.nanoTime() - t0;
+		return new SolveReport(puzzleNum, puzzle.myTitle, rs, nanos, solver);
+	}
+
+	/**
+	 * Runs the solver's thread to completion on the calling thread.<br>
+	 * The interrupt status set by the headless viewer is cleared afterwards.
+	 * @param worker Thread returned by solver.getThread.
+	 */
+	static void run(final Thread worker) {
+		try {
+			worker.run();
+		}
+		finally {
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * Solves each puzzle given on the command line.
+	 * @param args Optional "-v" to print the solver messages, followed by one or more puzzle numbers.
+	 */
+	public static void main(final String[] args) {
+		PrintStream out = null;
+		int n = 0;
+		for (String arg : args) {
+			if ("-v".equals(arg)) {
+				out = System.out;
+				continue;
+			}
+			int puzzleNum = Integer.parseInt(arg);
+			if (puzzleNum < 1 || puzzleNum >= Puzzles.titles.length) {
+				System.err.println("Puzzle number must be from 1 to " + (Puzzles.titles.length - 1) + ": " + arg);
+				System.exit(1);
+			}
+			solve(puzzleNum, out).print(System.out);
+			++n;
+		}
+
+		if (n == 0) {
+			System.err.println("Usage: SolveRunner [-v] puzzleNum...");
+			for (int i = 1; i < Puzzles.titles.length; i++) System.err.println("  " + i + " " + Puzzles.titles[i]);
+			System.exit(1);
+		}
+	}
+}
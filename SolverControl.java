@@ -0,0 +1,145 @@
+package com.mysterymaster.androidapp;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The Solver Control is the pause/resume handshake between the UI thread and the worker thread.<br>
+ * The worker parks only when a pause is needed, and the UI unparks it with a Step, Resume, or Quit command.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class SolverControl {
+	/** True while the worker is paused. Set by the worker, cleared by the UI. */
+	private volatile boolean paused = false;
+
+	/** True if the worker must not pause again because the user quit. */
+	private volatile boolean quit = false;
+
+	/** True if the worker must pause at the next event. */
+	private volatile boolean stepEvent = false;
+
+	/** Number of marks to enter before the worker pauses, or zero. */
+	private volatile int marksLeft = 0;
+
+	/** Thread that is paused, or null. */
+	private volatile Thread waiter = null;
+
+	/** Number of events sent by the worker since the action was submitted. Written by the worker. */
+	private volatile int numEvents = 0;
+
+	/** Number of the event the worker runs to without pausing when a checkpoint is restored, or zero. */
+	private volatile int skipEvents = 0;
+
+	/** Clears the commands before a new action is submitted. Called on the UI thread. */
+	void reset() {
+		quit = false;
+		stepEvent = false;
+		marksLeft = 0;
+		numEvents = 0;
+		skipEvents = 0;
+	}
+
+	/**
+	 * Runs the worker to the given event without pausing, then pauses it on that event. Called on the UI thread after reset.
+	 * @param numEvents Number of the event, as given by getNumEvents when the checkpoint was made.
+	 */
+	void skipTo(final int numEvents) {
+		skipEvents = numEvents;
+	}
+
+	/** Returns the number of events sent by the worker since the action was submitted. */
+	int getNumEvents() {
+		return numEvents;
+	}
+
+	/** Returns true if the worker has not yet reached the event given by skipTo, so the event is not displayed. */
+	boolean isMuted() {
+		return numEvents < skipEvents;
+	}
+
+	/** Returns true if the user quit the current action, otherwise false. */
+	boolean isQuit() {
+		return quit;
+	}
+
+	/** Returns true if the worker is paused and waits for a command, otherwise false. */
+	boolean isPaused() {
+		return paused;
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Worker">
+
+	/**
+	 * Returns true if the worker must pause after this event, otherwise false. Called on the worker thread.<br>
+	 * If true, the pause starts now so a command sent as soon as the UI shows the event is not lost.
+	 * @param isMark True if the event is an entered mark.
+	 * @param okPause True if the setup options request a pause.
+	 * @return Boolean.
+	 */
+	boolean isPausing(final boolean isMark, final boolean okPause) {
+		++numEvents;
+		if (quit || numEvents < skipEvents) return false;
+		boolean b = okPause || numEvents == skipEvents;
+		if (stepEvent) {
+			stepEvent = false;
+			b = true;
+		}
+		else if (isMark && marksLeft > 0) {
+			if (--marksLeft == 0) b = true;
+		}
+		if (b) {
+			waiter = Thread.currentThread();
+			paused = true;
+		}
+		return b;
+	}
+
+	/**
+	 * Parks the worker thread until the UI sends a Step, Resume, or Quit command. Called on the worker thread.<br>
+	 * Note: Must only be called after isPausing returned true.
+	 */
+	void await() {
+		while (paused && !quit) LockSupport.park(this);
+		waiter = null;
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Commands">
+
+	/** Resumes the worker until the setup options request a pause. */
+	void resume() {
+		release();
+	}
+
+	/** Resumes the worker until the next event. */
+	void step() {
+		stepEvent = true;
+		release();
+	}
+
+	/**
+	 * Resumes the worker until the given number of marks are entered, or the setup options request a pause.
+	 * @param numMarks Number of marks.
+	 */
+	void stepMarks(final int numMarks) {
+		marksLeft = numMarks;
+		release();
+	}
+
+	/** Releases the worker and lets it run to the end without pausing. */
+	void quit() {
+		quit = true;
+		release();
+	}
+
+	/** Unparks the paused worker, if any. */
+	private void release() {
+		paused = false;
+		Thread thread = waiter;
+		if (thread != null) LockSupport.unpark(thread);
+	}
+
+	// </editor-fold>
+}
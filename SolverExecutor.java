@@ -0,0 +1,147 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.solver.Solver;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Solver Executor runs the solver actions on one long-lived worker thread.<br>
+ * The actions are queued, so a grid click never waits for a thread to be created.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class SolverExecutor {
+	// Actions. See solver.getThread.
+	static final int SOLVE = 0;
+	static final int ADD_USER_MARK = 1;
+	static final int UNDO_USER_MARK = 2;
+
+	/** Solver object. */
+	private final Solver solver;
+
+	/** Single-thread executor that owns the worker thread. */
+	private final ExecutorService executor;
+
+	/** Worker thread. Set by the thread factory when the executor creates it. */
+	private volatile Thread worker = null;
+
+	/** Last task submitted. Used on the UI thread only. */
+	private Task task = null;
+
+	/**
+	 * Number of tasks submitted that have not finished. Decremented by the worker when a task returns,
+	 * or by cancel when a task is dropped before it starts.
+	 */
+	private final AtomicInteger numTasks = new AtomicInteger();
+
+	/** Task queued on the worker thread. It runs at most once, and is counted until it returns or is dropped. */
+	private final class Task implements Runnable {
+		/** Body of the task. */
+		private final Runnable body;
+
+		/** True once the task is started or dropped. */
+		private final AtomicBoolean okClaimed = new AtomicBoolean();
+
+		/**
+		 * Constructor.
+		 * @param body Body of the task.
+		 */
+		Task(final Runnable body) {
+			this.body = body;
+		}
+
+		@Override
+		public void run() {
+			if (!okClaimed.compareAndSet(false, true)) return;
+			try {
+				body.run();
+			}
+			finally {
+				Thread.interrupted();
+				numTasks.decrementAndGet();
+			}
+		}
+
+		/** Drops the task if it has not started. */
+		void drop() {
+			if (okClaimed.compareAndSet(false, true)) numTasks.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * @param solver Solver.
+	 */
+	SolverExecutor(final Solver solver) {
+		this.solver = solver;
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "solver");
+			thread.setDaemon(true);
+			worker = thread;
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues the action, and returns its completion.<br>
+	 * The runnable of the thread returned by solver.getThread is run on the worker thread, so no thread is started.
+	 * @param action Action, either SOLVE, ADD_USER_MARK, or UNDO_USER_MARK.
+	 * @return Future.
+	 */
+	Future<?> submit(final int action) {
+		return submit(() -> solver.getThread(action).run());
+	}
+
+	/**
+	 * Queues the task, and returns its completion. Used when an action must first check the solution cache.
+	 * @param task Task, which may run an action with runAction.
+	 * @return Future.
+	 */
+	Future<?> submit(final Runnable task) {
+		this.task = new Task(task);
+		numTasks.incrementAndGet();
+		return executor.submit(this.task);
+	}
+
+	/**
+	 * Runs the action on the current thread. Called by a task on the worker thread.
+	 * @param action Action, either SOLVE, ADD_USER_MARK, or UNDO_USER_MARK.
+	 */
+	void runAction(final int action) {
+		solver.getThread(action).run();
+	}
+
+	/**
+	 * Returns true if a task submitted has not returned, otherwise false.<br>
+	 * Note: A task the solver was asked to quit still counts until it returns, so the UI thread never enters a
+	 * mark while the worker is inside the solver.
+	 */
+	boolean isWorking() {
+		return numTasks.get() > 0;
+	}
+
+	/** Returns true if the current thread is the worker thread, otherwise false. */
+	boolean isWorker() {
+		return Thread.currentThread() == worker;
+	}
+
+	/**
+	 * Asks the solver to quit the current action, and drops the last task if it has not started.<br>
+	 * The cancellation is cooperative: the solver stops at its next check of the quit flag.
+	 */
+	void cancel() {
+		solver.doQuit();
+		if (task != null) task.drop();
+	}
+
+	/** Quits the current action and stops the worker thread. Called when the activity is destroyed. */
+	void shutdown() {
+		cancel();
+		executor.shutdownNow();
+	}
+}
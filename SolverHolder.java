@@ -0,0 +1,644 @@
+package com.mysterymaster.androidapp;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.mysterymaster.puzzle.Fact;
+import com.mysterymaster.puzzle.Mark;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzle.Rule;
+import com.mysterymaster.solver.IViewer;
+import com.mysterymaster.solver.Solver;
+import com.mysterymaster.solver.Spots;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * The Solver Holder owns the solver, the setup options, and the worker thread, and implements the IViewer interface.<br>
+ * It is retained by the Main Activity across configuration changes such as a rotation, so a solve in progress
+ * keeps running while the activity is recreated. The events sent while no activity is attached stay queued in the
+ * dispatcher, and the new viewers rebuild their forms before the queued events are handed to them.<br>
+ * Each event carries a copy of what the viewers need from the solver, and the counters are published as snapshots,
+ * so the UI thread never reads the solver while the worker is running.<br>
+ * When the activity pauses while the solver is paused, a checkpoint is saved, so the paused solve can be restored
+ * if Android kills the process.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class SolverHolder implements IViewer {
+	/** Locker object. */
+	final Locker locker;
+
+	/** Setup Options object. */
+	final Spots spots;
+
+	/** Solver object. */
+	final Solver solver;
+
+	/** Executor that runs the solver actions on the worker thread. */
+	final SolverExecutor executor;
+
+	/** Pause/resume handshake with the worker thread. */
+	final SolverControl control = new SolverControl();
+
+	/** Dispatcher of the solver events to the attached activity. */
+	private final Dispatcher dispatcher;
+
+	/** Mark streams of the solved puzzles. */
+	private final SolutionCache solutionCache;
+
+	/** Rows of the Marks form, kept here so a new Marks form shows the marks entered so far. Used on the UI thread only. */
+	final MarkRows markRows = new MarkRows();
+
+	/** Handler of the UI thread. */
+	private final Handler handler = new Handler(Looper.getMainLooper());
+
+	/** Main Activity, or null while the activity is being recreated. Used on the UI thread only. */
+	private MainActivity activity;
+
+	/** Puzzle object, or null. */
+	Puzzle puzzle = null;
+
+	/** Puzzles validated by the solver, given by their fingerprint. Used by the puzzle loader on the worker thread only. */
+	final HashMap<Long, PuzzleLoader.Validated> validated = new HashMap<>();
+
+	/** One-based number of the puzzle given to the solver, zero for no puzzle, or -1 before the first puzzle is loaded. */
+	int puzzleNum = -1;
+
+	/** Saved solution that is displayed instead of the solver marks, or null. Used on the UI thread only. */
+	SolutionCache.Solution replayed = null;
+
+	/** File of the checkpoint. */
+	private final File checkpointFile;
+
+	/** Checkpoint loaded when the holder was created, and not yet restored, or null. Used on the UI thread only. */
+	private Checkpoint checkpoint;
+
+	/** True if the last action submitted solves the puzzle. Used on the UI thread only. */
+	private boolean okSolving = false;
+
+	/** Key of the puzzle with the setup options when the last solve was submitted, or null. Used on the UI thread only. */
+	private String solveKey = null;
+
+	/** True if the marks sent during the current action are not displayed. Set before an action is submitted. */
+	private volatile boolean okMuteMarks = false;
+
+	/**
+	 * Constructor. Must be called on the UI thread.
+	 * @param activity Main Activity that creates the holder.
+	 */
+	SolverHolder(final MainActivity activity) {
+		this.activity = activity;
+		locker = new Locker(activity.getPreferences(Context.MODE_PRIVATE));
+		spots = new Spots(locker);
+		solver = new Solver(this, spots);
+		executor = new SolverExecutor(solver);
+		dispatcher = new Dispatcher(activity);
+		solutionCache = new SolutionCache(new File(activity.getCacheDir(), "solutions"));
+		checkpointFile = new File(activity.getFilesDir(), "checkpoint.bin");
+		checkpoint = Checkpoint.load(checkpointFile);
+		takeCounters();
+	}
+
+	/**
+	 * Attaches the activity that was recreated, and hands it the events queued while no activity was attached.<br>
+	 * Called by activity.onCreate after the viewers are rebuilt.
+	 * @param activity Main Activity.
+	 */
+	void attach(final MainActivity activity) {
+		this.activity = activity;
+		dispatcher.attach(activity);
+	}
+
+	/** Detaches the activity that is destroyed by a configuration change. Called by activity.onDestroy. */
+	void detach() {
+		activity = null;
+		dispatcher.detach();
+	}
+
+	/** Quits the current action and stops the worker thread. Called when the activity is finished. */
+	void shutdown() {
+		activity = null;
+		dispatcher.detach();
+		executor.shutdown();
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Actions">
+
+	/** Returns true if the worker thread is working, otherwise false. */
+	boolean isWorking() {
+		return executor.isWorking();
+	}
+
+	/**
+	 * Clears the commands and queues the action.
+	 * @param action Action, either SolverExecutor.SOLVE, ADD_USER_MARK, or UNDO_USER_MARK.
+	 */
+	void run(final int action) {
+		run(action, false);
+	}
+
+	/**
+	 * Clears the commands and queues the action.
+	 * @param action Action, either SolverExecutor.SOLVE, ADD_USER_MARK, or UNDO_USER_MARK.
+	 * @param okMute True if the marks sent during the action are not displayed.
+	 */
+	private void run(final int action, final boolean okMute) {
+		prepare(action, okMute);
+		executor.submit(action);
+	}
+
+	/**
+	 * Clears the commands and the state of the previous action before an action is submitted. Called by run, solve.
+	 * @param action Action, either SolverExecutor.SOLVE, ADD_USER_MARK, or UNDO_USER_MARK.
+	 * @param okMute True if the marks sent during the action are not displayed.
+	 */
+	private void prepare(final int action, final boolean okMute) {
+		okSolving = action == SolverExecutor.SOLVE;
+		solveKey = okSolving && puzzle != null ? SolutionCache.getKey(puzzle, spots) : null;
+		skippedRows = null;
+		okRestoring = false;
+		okMuteMarks = okMute;
+		control.reset();
+	}
+
+	/** Handles the events that are queued now. Called by the activity before it takes or restores a snapshot. */
+	void drain() {
+		dispatcher.drain();
+	}
+
+	/**
+	 * Solves the puzzle. Called by activity.doSolve.<br>
+	 * If the puzzle was solved before with the same setup options and no pause is requested, the saved
+	 * solution is read on the worker thread and handed to the activity instead of running the solver.
+	 * Otherwise, or if the saved solution cannot be read, the marks are recorded as the solver enters them.
+	 */
+	void solve() {
+		if (puzzle == null || SolutionCache.isPausing(spots)) {
+			run(SolverExecutor.SOLVE);
+			return;
+		}
+
+		prepare(SolverExecutor.SOLVE, false);
+		final Puzzle myPuzzle = puzzle;
+		final String key = solveKey;
+		executor.submit(() -> {
+			byte[] stream = solutionCache.load(key);
+			SolutionCache.Solution solution = stream != null ? SolutionCache.read(stream, myPuzzle) : null;
+			if (solution != null) {
+				handler.post(() -> replay(myPuzzle, solution));
+				return;
+			}
+			recorder = new SolutionCache.Writer();
+			recorderKey = key;
+			try {
+				executor.runAction(SolverExecutor.SOLVE);
+			}
+			finally {
+				recorder = null;
+			}
+		});
+	}
+
+	/**
+	 * Keeps the saved solution, and lets the attached activity display it. Called on the UI thread.<br>
+	 * If no activity is attached, the new activity displays it when it rebuilds its forms.
+	 * @param myPuzzle Puzzle the solution was loaded for.
+	 * @param solution Saved solution.
+	 */
+	private void replay(final Puzzle myPuzzle, final SolutionCache.Solution solution) {
+		if (myPuzzle != puzzle) return;
+		replayed = solution;
+		if (activity != null) activity.replaySolution();
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Checkpoint">
+
+	/** Rows of the marks entered while a checkpoint is restored, or null. Set before an action is submitted, then used on the worker thread only. */
+	private MarkRows skippedRows = null;
+
+	/** Fingerprint of the rows saved in the checkpoint being restored. Set before the action is submitted. */
+	private long skippedFingerprint = 0;
+
+	/** True if the restored solve diverged from its checkpoint, and the solver is quitting. Used on the worker thread only. */
+	private boolean okDiverged = false;
+
+	/** Rows of the marks entered before the restored checkpoint, or null. Written by the worker, read on the UI thread. */
+	private volatile MarkRows restoredRows = null;
+
+	/** True while a checkpoint is restored. Set on the UI thread, cleared by the worker when the restore ends. */
+	private volatile boolean okRestoring = false;
+
+	/** True if the file of the checkpoint may exist. Used on the UI thread only. */
+	private boolean okCheckpointFile = true;
+
+	/**
+	 * Saves the checkpoint if the worker is paused while it solves the puzzle, otherwise deletes it.<br>
+	 * A checkpoint that was loaded but not yet restored is kept, and so is a checkpoint being restored, in case
+	 * the process is killed again before the restore ends. Called by activity.onPause.<br>
+	 * Note: The rows are copied on the UI thread, and the fingerprint and the file are handled by Checkpoint on its own thread.
+	 */
+	void saveCheckpoint() {
+		if (okRestoring) return;
+		if (okSolving && solveKey != null && isWorking() && control.isPaused() && !control.isMuted()) {
+			// The rows must include every event sent before the pause.
+			dispatcher.drain();
+			MarkRows rows = new MarkRows();
+			rows.copyFrom(markRows);
+			Checkpoint.save(checkpointFile, puzzleNum, solveKey, control.getNumEvents(), rows);
+			okCheckpointFile = true;
+		}
+		else if (checkpoint == null && okCheckpointFile) {
+			okCheckpointFile = false;
+			Checkpoint.delete(checkpointFile);
+		}
+	}
+
+	/**
+	 * Restores the checkpoint if it is for the puzzle and the current setup options. Called by activity.setPuzzle.<br>
+	 * The worker runs the solver to the event it paused on without displaying anything, then pauses there.
+	 * The forms are rebuilt once from the tables sent with the restored event, and only if the rows
+	 * of the marks match the checkpoint.
+	 * @return True if the checkpoint is being restored, otherwise false.
+	 */
+	boolean restoreCheckpoint() {
+		Checkpoint cp = checkpoint;
+		if (cp == null || puzzle == null) return false;
+		checkpoint = null;
+		if (cp.puzzleNum != puzzleNum || !cp.key.equals(SolutionCache.getKey(puzzle, spots))) return false;
+
+		okSolving = true;
+		solveKey = cp.key;
+		skippedRows = new MarkRows();
+		skippedFingerprint = cp.rowsFingerprint;
+		okDiverged = false;
+		okRestoring = true;
+		okMuteMarks = false;
+		control.reset();
+		control.skipTo(cp.numEvents);
+		executor.submit(SolverExecutor.SOLVE);
+		return true;
+	}
+
+	/**
+	 * Keeps the row of the mark while a checkpoint is restored. Called by say on the worker thread.<br>
+	 * When the worker reaches the event it paused on, the rows are compared with the checkpoint. If they match,
+	 * the event is sent, followed by the restored event. Otherwise the solver quits without displaying anything,
+	 * and only its stopped event is sent. A solver that stops before the checkpoint also diverged.
+	 * @return True if the event is muted, otherwise false.
+	 */
+	private boolean skip(final int kind, final Mark mark) {
+		switch (kind) {
+			case Dispatcher.ADD_MARK: skippedRows.add(mark); break;
+			case Dispatcher.REMOVE_MARK: skippedRows.remove(mark.num - 1); break;
+			case Dispatcher.VALID_MARK: skippedRows.setValid(mark.num - 1, mark.valid); break;
+		}
+		if (!okDiverged) {
+			if (control.isMuted() && kind != Dispatcher.STOPPED) return true;
+			if (!control.isMuted() && skippedRows.getFingerprint() == skippedFingerprint) {
+				restoredRows = skippedRows;
+				skippedRows = null;
+				okRestoring = false;
+				return false;
+			}
+			BaseViewer.print("The solver diverged from the checkpoint at event " + control.getNumEvents());
+			okDiverged = true;
+			control.quit();
+			solver.doQuit();
+		}
+		if (kind == Dispatcher.STOPPED) {
+			skippedRows = null;
+			okDiverged = false;
+			okRestoring = false;
+			dispatcher.post(new Dispatcher.Event(Dispatcher.STOPPED, "The paused solve could not be restored.", false));
+		}
+		return true;
+	}
+
+	/** Copies the rows of the marks entered before the restored checkpoint. Called by activity.sayEvent on the UI thread. */
+	void sayRestored() {
+		MarkRows rows = restoredRows;
+		restoredRows = null;
+		if (rows != null) markRows.copyFrom(rows);
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Undo">
+
+	/** Snapshots of the forms taken before each mark entered by the user, the latest first. Used on the UI thread only. */
+	private final ArrayDeque<UndoSnapshot> undoSnapshots = new ArrayDeque<>();
+
+	/** Snapshot to restore when the current undo completes, or null. Used on the UI thread only. */
+	private UndoSnapshot undoSnapshot = null;
+
+	/**
+	 * Keeps the snapshot taken before the user's mark is entered. Called by activity.addMarkByUser.
+	 * @param snapshot Snapshot.
+	 */
+	void pushSnapshot(final UndoSnapshot snapshot) {
+		undoSnapshots.push(snapshot);
+	}
+
+	/** Removes the snapshots. Called by activity.reset. */
+	void clearSnapshots() {
+		undoSnapshots.clear();
+		undoSnapshot = null;
+	}
+
+	/**
+	 * Undoes all marks back to and including the last mark entered by the user. Called by activity.undoUserMark.<br>
+	 * If the snapshot taken before that mark is kept, the marks the solver removes are not displayed,
+	 * and the forms are restored from the snapshot in one step. Otherwise every removed mark is displayed.
+	 * @param mark Last mark entered by the user.
+	 */
+	void undo(final Mark mark) {
+		// Discard the snapshots of the user marks the solver already removed.
+		while (!undoSnapshots.isEmpty() && undoSnapshots.peek().numRows >= mark.num) undoSnapshots.pop();
+		UndoSnapshot snapshot = undoSnapshots.peek();
+		undoSnapshot = snapshot != null && snapshot.numRows == mark.num - 1 ? undoSnapshots.pop() : null;
+		run(SolverExecutor.UNDO_USER_MARK, undoSnapshot != null);
+	}
+
+	/**
+	 * Returns the snapshot to restore now that the undo completed, or null. Called by activity.sayEvent on the UI thread.
+	 * @return Snapshot, or null.
+	 */
+	UndoSnapshot takeUndoSnapshot() {
+		UndoSnapshot snapshot = undoSnapshot;
+		undoSnapshot = null;
+		return snapshot;
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="IViewer">
+
+	@Override
+	public void jot(final String msg) {
+		BaseViewer.print(msg);
+	}
+
+	@Override
+	public void sayStarted(final String msg) {
+		boolean okPause = spots.sayStarted(msg);
+		say(Dispatcher.STARTED, msg, null, okPause);
+	}
+
+	@Override
+	public void sayStopped(final String msg) {
+		boolean okPause = spots.sayStopped();
+		say(Dispatcher.STOPPED, msg, null, okPause);
+	}
+
+	@Override
+	public void sayLevel(final String msg) {
+		boolean okPause = spots.sayLevel();
+		say(Dispatcher.LEVEL, msg, null, okPause);
+	}
+
+	@Override
+	public void saySolution(final String msg) {
+		boolean okPause = spots.saySolution();
+		say(Dispatcher.SOLUTION, msg, null, okPause);
+	}
+
+	@Override
+	public void sayAddMark(final String msg, final Mark mark) {
+		boolean okPause = spots.sayAddMark(mark);
+		say(Dispatcher.ADD_MARK, msg, mark, okPause);
+	}
+
+	@Override
+	public void sayRemoveMark(final String msg, final Mark mark) {
+		boolean okPause = spots.sayRemoveMark(mark);
+		say(Dispatcher.REMOVE_MARK, msg, mark, okPause);
+	}
+
+	@Override
+	public void sayValidMark(final String msg, final Mark mark) {
+		boolean okPause = spots.sayValidMark();
+		say(Dispatcher.VALID_MARK, msg, mark, okPause);
+	}
+
+	@Override
+	public void sayContradiction(final String msg) {
+		boolean okPause = spots.sayContradiction();
+		say(Dispatcher.CONTRADICTION, msg, null, okPause);
+	}
+
+	@Override
+	public void sayFactViolation(final String msg, final Mark mark, final Fact fact) {
+		boolean okPause = spots.sayFactViolation();
+		say(Dispatcher.FACT_VIOLATION, msg, mark, okPause);
+	}
+
+	@Override
+	public void sayRuleViolation(final String msg, final Mark mark, final Rule rule) {
+		boolean okPause = spots.sayRuleViolation();
+		say(Dispatcher.RULE_VIOLATION, msg, mark, okPause);
+	}
+
+	@Override
+	public void sayLawViolation(final String msg, final Mark mark) {
+		boolean okPause = spots.sayLawViolation();
+		say(Dispatcher.LAW_VIOLATION, msg, mark, okPause);
+	}
+
+	@Override
+	public void sayPlacers(final String msg, final Mark mark, final Rule rule) {
+		boolean okPause = spots.sayPlacers();
+		say(Dispatcher.PLACERS, msg, mark, okPause);
+	}
+
+	/**
+	 * Queues the event for the next frame. If a pause is needed, the worker parks until the user
+	 * sends a command. The worker never waits for the UI thread otherwise. Called by the IViewer methods.<br>
+	 * Note: The solver waits after each event until its thread is interrupted, so the worker interrupts itself.
+	 */
+	private void say(final int kind, final String msg, final Mark mark, final boolean okPause) {
+		if (!executor.isWorker()) {
+			dispatcher.post(newEvent(kind, msg, mark, false));
+			return;
+		}
+		if (okMuteMarks) {
+			switch (kind) {
+				case Dispatcher.ADD_MARK:
+				case Dispatcher.REMOVE_MARK:
+				case Dispatcher.VALID_MARK:
+				case Dispatcher.PLACERS:
+					Thread.currentThread().interrupt();
+					return;
+				case Dispatcher.STOPPED:
+					okMuteMarks = false;
+					dispatcher.post(new Dispatcher.Event(Dispatcher.UNDONE, null, false));
+					break;
+			}
+		}
+		boolean b = control.isPausing(kind == Dispatcher.ADD_MARK, okPause);
+		boolean okRestored = false;
+		if (skippedRows != null) {
+			if (skip(kind, mark)) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			okRestored = true;
+		}
+		publishCounters(b || kind == Dispatcher.STARTED || kind == Dispatcher.STOPPED);
+		if (recorder != null) record(kind, msg, mark);
+		dispatcher.post(newEvent(kind, msg, mark, b));
+
+		// The restored rows include this event, so the forms are rebuilt after it is handled. So are the forms of a recreated activity.
+		if (okRestored || okSync) {
+			okSync = false;
+			dispatcher.post(newTablesEvent(okRestored ? Dispatcher.RESTORED : Dispatcher.SYNC));
+		}
+		if (b) control.await();
+		Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Returns the event with a copy of what the viewers need from the solver. Called by say on the thread that owns the solver.<br>
+	 * The pairs of the chart are copied only when a rule placed nouns, since those pairs do not come from the mark.
+	 */
+	private Dispatcher.Event newEvent(final int kind, final String msg, final Mark mark, final boolean okPause) {
+		if (mark == null) return new Dispatcher.Event(kind, msg, okPause);
+		boolean okPairs = kind == Dispatcher.PLACERS
+			|| (kind == Dispatcher.ADD_MARK || kind == Dispatcher.REMOVE_MARK) && !mark.rulePlacers.isEmpty();
+		int gridVerbNum = solver.getGridVerb(mark.noun1, mark.noun2).num;
+		return new Dispatcher.Event(kind, msg, okPause, mark, gridVerbNum, okPairs ? copyPairs() : null, null);
+	}
+
+	/**
+	 * Returns the event with the cells of the grids and the pairs of the chart. Called by say on the worker thread.
+	 * @param kind Kind of event, either Dispatcher.RESTORED or SYNC.
+	 */
+	private Dispatcher.Event newTablesEvent(final int kind) {
+		return new Dispatcher.Event(kind, null, false, null, 0, copyPairs(), copyVerbs());
+	}
+
+	/** True if the next event of the worker is followed by the sync event. Set on the UI thread, cleared by the worker. */
+	private volatile boolean okSync = false;
+
+	/**
+	 * Asks the worker to send the cells of the grids and the pairs of the chart after its next event.<br>
+	 * Called by activity.attachPuzzle when the solver is running, since the forms cannot read the solver then.
+	 */
+	void requestSync() {
+		okSync = true;
+	}
+
+	/** Pair table loaded from the solver to be copied into an event, or null. Used on the thread that owns the solver. */
+	private PairTable pairTable = null;
+
+	/** Verb matrix loaded from the solver to be copied into an event, or null. Used on the thread that owns the solver. */
+	private VerbMatrix verbMatrix = null;
+
+	/** Puzzle of the pair table and the verb matrix, or null. */
+	private Puzzle tablesPuzzle = null;
+
+	/**
+	 * Creates the pair table and the verb matrix when the puzzle changed.
+	 * @return True if there is a puzzle, otherwise false.
+	 */
+	private boolean checkTables() {
+		Puzzle myPuzzle = puzzle;
+		if (myPuzzle == null) return false;
+		if (myPuzzle != tablesPuzzle) {
+			tablesPuzzle = myPuzzle;
+			pairTable = new PairTable(myPuzzle);
+			verbMatrix = new VerbMatrix(myPuzzle);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the pairs of the nouns loaded from the solver, or null if there is no puzzle.
+	 * @return Pairs given by pairTable.copyTo, or null.
+	 */
+	private byte[] copyPairs() {
+		if (!checkTables()) return null;
+		pairTable.load(tablesPuzzle);
+		byte[] pairs = new byte[pairTable.size()];
+		pairTable.copyTo(pairs);
+		return pairs;
+	}
+
+	/**
+	 * Returns the verbs of the grids loaded from the solver, or null if there is no puzzle.
+	 * @return Cells given by verbMatrix.copyTo, or null.
+	 */
+	private byte[] copyVerbs() {
+		if (!checkTables()) return null;
+		verbMatrix.load(tablesPuzzle, solver);
+		byte[] verbs = new byte[verbMatrix.size()];
+		verbMatrix.copyTo(verbs);
+		return verbs;
+	}
+
+	/** Minimum time in nanoseconds between two snapshots of the counters, so the board refreshes at most 30 times a second. */
+	private static final long COUNTERS_INTERVAL = 1_000_000_000L / 30;
+
+	/** Latest snapshot of the solver counters. Written by the worker thread, read by the board on the UI thread. */
+	volatile BoardCounters counters = null;
+
+	/** Latest snapshot of the counters of the facts, rules, and stats. Written with the board counters, read by the forms on the UI thread. */
+	volatile FormCounters forms = null;
+
+	/** Time in nanoseconds of the latest snapshot. Used on the worker thread only. */
+	private long countersTime = 0;
+
+	/**
+	 * Publishes a snapshot of the solver counters if enough time has passed since the last one. Called by say on the worker thread.
+	 * @param force True if the snapshot must be published now, such as when the worker pauses or stops.
+	 */
+	private void publishCounters(final boolean force) {
+		long now = System.nanoTime();
+		if (!force && now - countersTime < COUNTERS_INTERVAL) return;
+		countersTime = now;
+		forms = new FormCounters(puzzle, solver);
+		counters = new BoardCounters(solver);
+	}
+
+	/** Takes a snapshot of the counters on the UI thread. Called by the constructor, and by activity.reset while the worker is idle. */
+	void takeCounters() {
+		forms = new FormCounters(puzzle, solver);
+		counters = new BoardCounters(solver);
+	}
+
+	/** Recorder of the marks entered by the solver, or null. Used on the worker thread only. */
+	private SolutionCache.Writer recorder = null;
+
+	/** Key of the solution being recorded. Used on the worker thread only. */
+	private String recorderKey = null;
+
+	/**
+	 * Records the mark, or saves the solution when the solver stops. Called by say on the worker thread.<br>
+	 * The solution is saved only if the solver found it and the user did not quit.
+	 */
+	private void record(final int kind, final String msg, final Mark mark) {
+		switch (kind) {
+			case Dispatcher.SOLUTION:
+				recorder.saySolution();
+				break;
+			case Dispatcher.ADD_MARK:
+			case Dispatcher.REMOVE_MARK:
+			case Dispatcher.VALID_MARK:
+				recorder.record(kind, mark);
+				break;
+			case Dispatcher.STOPPED:
+				SolutionCache.Writer writer = recorder;
+				recorder = null;
+				if (writer.hasSolution() && !control.isQuit()) solutionCache.save(recorderKey, writer.finish(counters, forms, msg));
+				break;
+		}
+	}
+
+	// </editor-fold>
+}
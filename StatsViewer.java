@@ -22,30 +22,35 @@ final class StatsViewer extends BaseViewer  {
 	/** Marks by Level table. */
 	private TableLayout tblMarksByLevel;
 
+	/** Count cells of the Pairs table, where cell = pairsCells[irow - 1][icol - 1]. */
+	private TextView[][] pairsCells;
+
+	/** Count cells of the Marks table, where cell = marksCells[irow - 1][icol - 1]. */
+	private TextView[][] marksCells;
+
+	/** Counts displayed in the Pairs table. */
+	private int[][] pairsShown;
+
+	/** Counts displayed in the Marks table. */
+	private int[][] marksShown;
+
 	/**
 	 * Constructor.
 	 * @param activity Main Activity.
 	 */
 	StatsViewer(final MainActivity activity) {
 		this.activity = activity;
-		this.solver = activity.solver;
 		initForm();
 	}
 
-	/** Updates the form when a puzzle is selected. Called by tabbyViewer.setPuzzle. */
-	void setPuzzle() {
-		update();
-	}
-
-	/** Resets the form. Called by tabbyViewer.reset. */
-	void reset() {
-		update();
-	}
-
 	/** Initializes the form. Called by the constructor. */
 	private void initForm() {
 		tblPairsByLevel = getSubTable(R.id.tblPairsByLevel);
 		tblMarksByLevel = getSubTable(R.id.tblMarksByLevel);
+		pairsCells = getCells(tblPairsByLevel);
+		marksCells = getCells(tblMarksByLevel);
+		pairsShown = new int[pairsCells.length][pairsCells[0].length];
+		marksShown = new int[marksCells.length][marksCells[0].length];
 	}
 
 	/**
@@ -94,28 +99,52 @@ final class StatsViewer extends BaseViewer  {
 		return tbl;
 	}
 
-	/** Updates the Stats form. */
-	void update() {
-		updateTable(tblPairsByLevel, solver.stats.levelPairs);
-		updateTable(tblMarksByLevel, solver.stats.levelMarks);
-	}
-
 	/**
-	 * Updates the given table for the Stats form.
+	 * Returns the count cells of the table, which are every cell except the header row and column.
 	 * @param tbl Table.
-	 * @param levelCounters Level counters for the table.
+	 * @return Count cells, where cell = cells[irow - 1][icol - 1].
 	 */
-	private void updateTable(final TableLayout tbl, final LevelCounter[] levelCounters) {
+	private static TextView[][] getCells(final TableLayout tbl) {
 		final int ncols = Solver.MAX_LAWS + 4;
 		final int nrows = Solver.MAX_LEVELS + 2;
 
+		TextView[][] cells = new TextView[nrows - 1][ncols - 1];
 		for (int irow = 1; irow < nrows; irow++) {
 			TableRow row = (TableRow) tbl.getChildAt(irow);
-			LevelCounter levelCounter = levelCounters[irow - 1];
-			int[] counts = levelCounter.getCounts();
-			for (int icol = 1; icol < ncols; icol++) {
-				TextView txt = (TextView) row.getChildAt(icol);
-				setText(txt, counts[icol - 1]);
+			for (int icol = 1; icol < ncols; icol++) cells[irow - 1][icol - 1] = (TextView) row.getChildAt(icol);
+		}
+		return cells;
+	}
+
+	/** Counters displayed by the form, or null. */
+	private FormCounters shownCounters = null;
+
+	/**
+	 * Updates the Stats form if the counters changed since the last frame. Called by tabbyViewer.catchUp, flush.
+	 * @param counters Latest counters of the solver holder.
+	 */
+	void flush(final FormCounters counters) {
+		if (counters == shownCounters) return;
+		shownCounters = counters;
+		updateTable(pairsCells, pairsShown, counters.levelPairs);
+		updateTable(marksCells, marksShown, counters.levelMarks);
+	}
+
+	/**
+	 * Updates the given table for the Stats form.<br>
+	 * Only the cells whose count differs from the count displayed are set, which is usually one or two per mark.
+	 * @param cells Count cells of the table.
+	 * @param shown Counts displayed in the table.
+	 * @param levelCounts Counts of the level counters for the table, as given by the form counters.
+	 */
+	private static void updateTable(final TextView[][] cells, final int[][] shown, final int[][] levelCounts) {
+		for (int i = 0; i < cells.length; i++) {
+			int[] counts = levelCounts[i];
+			int[] row = shown[i];
+			for (int j = 0; j < row.length; j++) {
+				if (row[j] == counts[j]) continue;
+				row[j] = counts[j];
+				setText(cells[i][j], counts[j]);
 			}
 		}
 	}
@@ -6,10 +6,10 @@ import android.widget.GridLayout;
 import android.widget.LinearLayout;
 import android.widget.TableLayout;
 
-import com.mysterymaster.puzzle.Fact;
-import com.mysterymaster.puzzle.Mark;
+import com.mysterymaster.puzzle.Noun;
 import com.mysterymaster.puzzle.Puzzle;
-import com.mysterymaster.puzzle.Rule;
+
+import java.util.Arrays;
 
 /**
  * The Tab Viewer class manages the views (aka forms) that correspond to each tab.<br>
@@ -18,6 +18,18 @@ import com.mysterymaster.puzzle.Rule;
  * @author Michael Benson <michael.benson@mysterymaster.com>
  */
 final class TabbyViewer extends BaseViewer {
+	// Zero-based tab numbers.
+	private static final int TAB_NOUNS = 0;
+	private static final int TAB_VERBS = 1;
+	private static final int TAB_LINKS = 2;
+	private static final int TAB_FACTS = 3;
+	private static final int TAB_RULES = 4;
+	private static final int TAB_MARKS = 5;
+	private static final int TAB_CHART = 6;
+	private static final int TAB_GRIDS = 7;
+	private static final int TAB_STATS = 8;
+	private static final int TAB_SETUP = 9;
+
 	/** Zero-based number of the current tab. */
 	private int tabNum;
 
@@ -66,6 +78,8 @@ final class TabbyViewer extends BaseViewer {
 		// Put the parent view that corresponds to each tab in a list.
 		// Note: View.VISIBLE = 0, View.INVISIBLE = 4, View.GONE = 8.
 		tabForms = new View[maxTabs];
+		okPuzzle = new boolean[maxTabs];
+		Arrays.fill(okPuzzle, true);
 		int i = -1;
 
 		TableLayout  tblNouns = (TableLayout)  getTabForm(R.id.tblNouns, ++i);
@@ -119,35 +133,56 @@ final class TabbyViewer extends BaseViewer {
 
 	/**
 	 * Sets the puzzle when a new puzzle is selected.<br>
-	 * Called by activity.setPuzzle.
+	 * Called by activity.setPuzzle.<br>
+	 * Note: The Marks, Chart, and Grids viewers always get the puzzle since they keep the data for every mark.
+	 * The other forms are built when their tab is first shown.
 	 * @param puzzle Puzzle.
 	 */
 	void setPuzzle(final Puzzle puzzle) {
 		this.puzzle = puzzle;
 
-		nounsViewer.setPuzzle(puzzle);
-		verbsViewer.setPuzzle(puzzle);
-		linksViewer.setPuzzle(puzzle);
-		factsViewer.setPuzzle(puzzle);
-		rulesViewer.setPuzzle(puzzle);
 		marksViewer.setPuzzle(puzzle);
 		chartViewer.setPuzzle(puzzle);
 		gridsViewer.setPuzzle(puzzle);
-		statsViewer.setPuzzle();
+
+		Arrays.fill(okPuzzle, false);
+		okPuzzle[TAB_MARKS] = true;
+		okPuzzle[TAB_GRIDS] = true;
+		catchUp(tabNum);
+	}
+
+	/**
+	 * Sets the puzzle the solver already has after the activity is recreated.<br>
+	 * Called by activity.attachPuzzle, and by activity.sayEvent when a checkpoint is restored.<br>
+	 * Note: The Marks form shows the rows kept by the solver holder. The Chart and Grids forms are loaded
+	 * from the solver only if it is not running, otherwise they wait for the tables sent by the worker.
+	 * @param puzzle Puzzle, or null.
+	 * @param okLoad True if the solver can be read now, otherwise false.
+	 */
+	void attachPuzzle(final Puzzle puzzle, final boolean okLoad) {
+		this.puzzle = puzzle;
+
+		marksViewer.attachPuzzle(puzzle);
+		chartViewer.attachPuzzle(puzzle, okLoad);
+		gridsViewer.attachPuzzle(puzzle, okLoad);
+
+		Arrays.fill(okPuzzle, false);
+		okPuzzle[TAB_MARKS] = true;
+		okPuzzle[TAB_GRIDS] = true;
+		catchUp(tabNum);
 	}
 
 	/**
 	 * Resets the tab forms. Called by activity.reset.<br>
 	 * The forms for the nouns, verbs, and links are updated only when the puzzle is loaded.<br>
-	 * The Facts and Rules need to be updated when a fact or rule's checkbox or hits field changes.
+	 * The Facts, Rules, and Stats forms show the counters taken by the solver holder. No event follows a reset,
+	 * so the form that is shown is flushed now.
 	 */
 	void reset() {
-		factsViewer.reset();
-		rulesViewer.reset();
 		marksViewer.reset();
 		chartViewer.reset();
 		gridsViewer.reset();
-		statsViewer.reset();
+		flush();
 	}
 
 	// <editor-fold defaultstate="collapsed" desc="Tabs">
@@ -155,6 +190,18 @@ final class TabbyViewer extends BaseViewer {
 	private final TabLayout tabLayout;
 	private final View[] tabForms;
 
+	/** True if the form of the tab shows the current puzzle, where ok = okPuzzle[pos]. */
+	private final boolean[] okPuzzle;
+
+	/**
+	 * Returns true if the tab is the one displayed, otherwise false.
+	 * @param pos Zero-based tab position.
+	 * @return Boolean.
+	 */
+	private boolean isShown(final int pos) {
+		return pos == tabNum;
+	}
+
 	/**
 	 * Returns the View given by its id. This also places the View in the tabForms array.
 	 * @param id Id.
@@ -170,7 +217,7 @@ final class TabbyViewer extends BaseViewer {
 
 	/**
 	 * Displays the default tab. Called by the constructor.<br>
-	 * Note: getTabAt is one-based. Rotating device will reset app, so check for null objects!
+	 * Note: getTabAt is one-based. Rotating device recreates the activity, so check for null objects!
 	 */
 	private void setTab() {
 		//print("setTab() tabNum=" + tabNum + " tabLayout=" + tabLayout);
@@ -192,82 +239,176 @@ final class TabbyViewer extends BaseViewer {
 	private void setTab(final int pos) {
 		tabNum = activity.locker.setInt("tabNum", pos);
 		View view = tabForms[pos];
-		if (pos == 9) setupViewer.update();
+		catchUp(pos);
 		view.setVisibility(View.VISIBLE);
 	}
 
+	/**
+	 * Builds the form of the tab if it does not show the current puzzle, and updates it with the
+	 * latest counters if it missed updates while it was hidden. Called by setPuzzle, setTab.
+	 * @param pos Zero-based tab position.
+	 */
+	private void catchUp(final int pos) {
+		boolean okBuild = !okPuzzle[pos];
+		okPuzzle[pos] = true;
+
+		switch (pos) {
+			case TAB_NOUNS: if (okBuild) nounsViewer.setPuzzle(puzzle); break;
+			case TAB_VERBS: if (okBuild) verbsViewer.setPuzzle(puzzle); break;
+			case TAB_LINKS: if (okBuild) linksViewer.setPuzzle(puzzle); break;
+			case TAB_FACTS:
+				if (okBuild) factsViewer.setPuzzle(puzzle);
+				factsViewer.flush(activity.holder.forms);
+				break;
+			case TAB_RULES:
+				if (okBuild) rulesViewer.setPuzzle(puzzle);
+				rulesViewer.flush(activity.holder.forms);
+				break;
+			case TAB_CHART: chartViewer.show(); break;
+			case TAB_STATS: statsViewer.flush(activity.holder.forms); break;
+			case TAB_SETUP: setupViewer.update(); break;
+		}
+	}
+
 	// </editor-fold>
 
 	// <editor-fold defaultstate="collapsed" desc="IViewer">
 
-	/** Updates the forms when a thread starts running.<br>Called by activity.sayStarted. */
+	/** Updates the forms when a thread starts running.<br>Called by activity.sayEvent. */
 	void sayStarted() {
 		gridsViewer.sayStarted();
 	}
 
-	/** Updates the forms when a thread stops running.<br>Called by activity.sayStopped. */
+	/** Updates the forms when a thread stops running.<br>Called by activity.sayEvent. */
 	void sayStopped() {
 		gridsViewer.sayStopped();
 	}
 
 	/**
-	 * Updates the forms when a mark is entered.<br>Called by activity.sayAddMark.
-	 * @param mark Mark that was entered.
+	 * Updates the forms when a mark is entered.<br>Called by activity.sayEvent.<br>
+	 * Note: The Facts, Rules, and Stats forms are updated from the counters when they are flushed.
+	 * @param event Event with the mark that was entered.
+	 */
+	void sayAddMark(final Dispatcher.Event event) {
+		marksViewer.update(event, 1);
+		chartViewer.update(event, true);
+		gridsViewer.update(event);
+	}
+
+	/**
+	 * Updates the forms when a mark is removed.<br>Called by activity.sayEvent.
+	 * @param event Event with the mark that was removed.
 	 */
-	void sayAddMark(final Mark mark) {
-		factsViewer.update(mark);
-		rulesViewer.update(mark); // TODO See if this is a trigger.
-		marksViewer.update(mark, 1);
-		chartViewer.update(mark);
-		gridsViewer.update(mark);
-		statsViewer.update();
+	void sayRemoveMark(final Dispatcher.Event event) {
+		marksViewer.update(event, -1);
+		chartViewer.update(event, false);
+		gridsViewer.update(event);
 	}
 
 	/**
-	 * Updates the forms when a mark is removed.<br>Called by activity.sayRemovedMark.
-	 * @param mark Mark that was removed.
+	 * Updates the forms when a mark is validated.<br>Called by activity.sayEvent.
+	 * @param event Event with the mark that was validated.
 	 */
-	void sayRemoveMark(final Mark mark) {
-		factsViewer.update(mark);
-		marksViewer.update(mark, -1);
-		chartViewer.update(mark);
-		gridsViewer.update(mark);
-		statsViewer.update();
+	void sayValidMark(final Dispatcher.Event event) {
+		marksViewer.update(event, 0);
 	}
 
 	/**
-	 * Updates the forms when a mark is validated.<br>Called by activity.sayValidMark.
-	 * @param mark Mark that was validated.
+	 * Updates the forms when one or more nouns are updated.<br>Called by activity.sayEvent.
+	 * @param event Event with the mark, and the pairs after the rule updated the nouns.
 	 */
-	void sayValidMark(final Mark mark) {
-		factsViewer.update(mark);
-		marksViewer.update(mark, 0);
+	void sayPlacers(final Dispatcher.Event event) {
+		chartViewer.sayPlacers(event);
 	}
 
 	/**
-	 * Updates the forms when a mark violates a fact.<br>Called by activity.sayFactViolation.
-	 * @param fact Fact violated by a mark.
+	 * Shows the cells of the grids and the pairs of the chart sent by the worker. Called by activity.sayEvent.
+	 * @param event Event with the tables, either restored or sync.
 	 */
-	void sayFactViolation(final Fact fact) {
-		factsViewer.update(fact);
+	void sayTables(final Dispatcher.Event event) {
+		if (event.verbs == null || event.pairs == null) return;
+		gridsViewer.restoreVerbs(event.verbs);
+		chartViewer.restorePairs(event.pairs);
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Replay">
+
+	/** Prepares the forms for a replayed solution. Called by activity.replaySolution. */
+	void replayStarted() {
+		gridsViewer.setReplayed(true);
 	}
 
 	/**
-	 * Updates the forms when a mark violates a rule.<br>Called by activity.sayRuleViolation.
-	 * @param rule Rule violated by a mark.
+	 * Updates the forms when a replayed mark is entered. Called by activity.replayAddMark.<br>
+	 * Note: The Facts, Rules, and Stats forms are not replayed mark by mark. They show the counters saved with
+	 * the solution, which are published when the replay stops.
 	 */
-	void sayRuleViolation(final Rule rule) {
-		rulesViewer.update(rule);
+	void replayAddMark(final int num, final Noun noun1, final Noun noun2, final int verbNum, final boolean valid,
+			final String level, final String type, final String name) {
+		marksViewer.replay(num, 1, valid, level, type, name);
+		gridsViewer.setVerb(noun1, noun2, verbNum);
+		if (verbNum == Puzzle.Is.num) chartViewer.replay(noun1, noun2, true);
 	}
 
+	/** Updates the forms when a replayed mark is removed. Called by activity.replayRemoveMark. */
+	void replayRemoveMark(final int num, final Noun noun1, final Noun noun2) {
+		marksViewer.replay(num, -1, false, null, null, null);
+		gridsViewer.setVerb(noun1, noun2, Puzzle.Maybe.num);
+		chartViewer.replay(noun1, noun2, false);
+	}
+
+	/** Updates the forms when a replayed mark is validated. Called by activity.replayValidMark. */
+	void replayValidMark(final int num, final boolean valid) {
+		marksViewer.replay(num, 0, valid, null, null, null);
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Undo">
+
 	/**
-	 * Updates the forms when one or more nouns are updated.<br>Called by activity.sayPlacers.
-	 * @param mark Mark containing the array of updated nouns.
-	 * @param rule Rule that updated the nouns when invoked on the mark.
+	 * Returns a snapshot of the forms that keep their own data, or null if there is no puzzle.<br>
+	 * Called by activity.addMarkByUser before the user's mark is entered.
+	 * @return Snapshot, or null.
 	 */
-	void sayPlacers(final Mark mark, final Rule rule) {
-		rulesViewer.update(rule);
-		chartViewer.update(mark);
+	UndoSnapshot takeSnapshot() {
+		byte[] verbs = gridsViewer.copyVerbs();
+		byte[] pairs = chartViewer.copyPairs();
+		if (verbs == null || pairs == null) return null;
+		return new UndoSnapshot(marksViewer.copyValids(), verbs, pairs);
+	}
+
+	/**
+	 * Restores the forms from the snapshot after the user's mark is undone. Each form is redrawn once.<br>
+	 * The Facts, Rules, and Stats forms are updated from the counters. Called by activity.sayEvent.
+	 * @param snapshot Snapshot.
+	 */
+	void restoreSnapshot(final UndoSnapshot snapshot) {
+		marksViewer.restoreRows(snapshot.valids);
+		gridsViewer.restoreVerbs(snapshot.verbs);
+		chartViewer.restorePairs(snapshot.pairs);
+	}
+
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Frame">
+
+	/**
+	 * Repaints the forms whose updates were deferred during the frame.<br>
+	 * Called by activity.flush after the dispatcher has handled all the events for the frame.<br>
+	 * Only the form that is shown is repainted. The others catch up when their tab is selected.<br>
+	 * The Facts, Rules, and Stats forms show the latest counters published by the solver holder.
+	 */
+	void flush() {
+		marksViewer.flush();
+		switch (tabNum) {
+			case TAB_FACTS: factsViewer.flush(activity.holder.forms); break;
+			case TAB_RULES: rulesViewer.flush(activity.holder.forms); break;
+			case TAB_CHART: chartViewer.flush(); break;
+			case TAB_STATS: statsViewer.flush(activity.holder.forms); break;
+		}
 	}
 
 	// </editor-fold>
@@ -0,0 +1,39 @@
+package com.mysterymaster.androidapp;
+
+/**
+ * The Undo Snapshot keeps what the forms display just before a mark is entered by the user, so undoing the mark
+ * restores the forms in one step instead of handling every mark the solver removes.<br>
+ * Only the forms that keep their own data are in the snapshot. The Facts, Rules, Stats, and Board forms show the counters of the solver holder.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class UndoSnapshot {
+	/** Number of rows in the Marks form. The user mark is the next row. */
+	final int numRows;
+
+	/**
+	 * Valid flag of each row in the Marks form, as given by marksViewer.copyValids.<br>
+	 * The solver may validate the earlier rows again while the user mark is undone, and those events are muted.
+	 */
+	final boolean[] valids;
+
+	/** Cells of the verb matrix of the Grids form, as given by verbMatrix.copyTo. */
+	final byte[] verbs;
+
+	/** Pairs of the pair table of the Chart form, as given by pairTable.copyTo. */
+	final byte[] pairs;
+
+	/**
+	 * Constructor.
+	 * @param valids Valid flag of each row in the Marks form.
+	 * @param verbs Cells of the verb matrix.
+	 * @param pairs Pairs of the pair table.
+	 */
+	UndoSnapshot(final boolean[] valids, final byte[] verbs, final byte[] pairs) {
+		this.numRows = valids.length;
+		this.valids = valids;
+		this.verbs = verbs;
+		this.pairs = pairs;
+	}
+}
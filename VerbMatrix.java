@@ -0,0 +1,144 @@
+package com.mysterymaster.androidapp;
+
+import com.mysterymaster.puzzle.Noun;
+import com.mysterymaster.puzzle.NounType;
+import com.mysterymaster.puzzle.Puzzle;
+import com.mysterymaster.puzzle.Verb;
+import com.mysterymaster.solver.Solver;
+
+import java.util.Arrays;
+
+/**
+ * The Verb Matrix keeps the verb number for every pair of nouns of different types in one byte array.<br>
+ * The pairs for noun types t1 < t2 form a region of n * n bytes, so each pair is stored once.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class VerbMatrix {
+	/** Number of noun types. */
+	private final int m;
+
+	/** Number of nouns per type. */
+	private final int n;
+
+	/** Verb number for each pair of nouns. */
+	private final byte[] cells;
+
+	/** Offset of the region for noun types t1 < t2, where offset = offsets[t1 * m + t2]. */
+	private final int[] offsets;
+
+	/**
+	 * Constructor. Every pair is set to the "Maybe" verb.
+	 * @param puzzle Puzzle.
+	 */
+	VerbMatrix(final Puzzle puzzle) {
+		m = puzzle.maxNounTypes;
+		n = puzzle.maxNouns;
+		offsets = new int[m * m];
+
+		int offset = 0;
+		for (int t1 = 0; t1 < m; t1++) {
+			for (int t2 = t1 + 1; t2 < m; t2++) {
+				offsets[t1 * m + t2] = offset;
+				offset += n * n;
+			}
+		}
+		cells = new byte[offset];
+		Arrays.fill(cells, (byte) Puzzle.Maybe.num);
+	}
+
+	/** Returns the number of bytes used by the cells. */
+	int size() {
+		return cells.length;
+	}
+
+	/**
+	 * Returns the index of the pair given by the zero-based type and noun indexes.
+	 * @return Index into the cells.
+	 */
+	private int getIndex(final int t1, final int n1, final int t2, final int n2) {
+		return t1 < t2 ? offsets[t1 * m + t2] + n1 * n + n2 : offsets[t2 * m + t1] + n2 * n + n1;
+	}
+
+	/**
+	 * Returns the verb number for the pair given by the zero-based type and noun indexes.
+	 * @return Verb number.
+	 */
+	int get(final int t1, final int n1, final int t2, final int n2) {
+		return cells[getIndex(t1, n1, t2, n2)];
+	}
+
+	/**
+	 * Returns the verb number for the pair of nouns.
+	 * @param noun1 Noun 1.
+	 * @param noun2 Noun 2.
+	 * @return Verb number.
+	 */
+	int get(final Noun noun1, final Noun noun2) {
+		return cells[getIndex(noun1.type.num - 1, noun1.num - 1, noun2.type.num - 1, noun2.num - 1)];
+	}
+
+	/**
+	 * Sets the verb for the pair of nouns.
+	 * @param noun1 Noun 1.
+	 * @param noun2 Noun 2.
+	 * @param verb Verb.
+	 * @return True if the verb changed, otherwise false.
+	 */
+	boolean set(final Noun noun1, final Noun noun2, final Verb verb) {
+		return set(noun1.type.num - 1, noun1.num - 1, noun2.type.num - 1, noun2.num - 1, verb.num);
+	}
+
+	/**
+	 * Sets the verb number for the pair given by the zero-based type and noun indexes.
+	 * @return True if the verb changed, otherwise false.
+	 */
+	boolean set(final int t1, final int n1, final int t2, final int n2, final int verbNum) {
+		int i = getIndex(t1, n1, t2, n2);
+		if (cells[i] == verbNum) return false;
+		cells[i] = (byte) verbNum;
+		return true;
+	}
+
+	/**
+	 * Sets every pair to the given verb.
+	 * @param verb Verb.
+	 */
+	void fill(final Verb verb) {
+		Arrays.fill(cells, (byte) verb.num);
+	}
+
+	/**
+	 * Sets every pair to the verb given by solver.getGridVerb.
+	 * @param puzzle Puzzle.
+	 * @param solver Solver.
+	 */
+	void load(final Puzzle puzzle, final Solver solver) {
+		for (int t1 = 0; t1 < m; t1++) {
+			NounType nounType1 = puzzle.nounTypes.get(t1);
+			for (int t2 = t1 + 1; t2 < m; t2++) {
+				NounType nounType2 = puzzle.nounTypes.get(t2);
+				for (Noun noun1 : nounType1.nouns) {
+					for (Noun noun2 : nounType2.nouns) set(noun1, noun2, solver.getGridVerb(noun1, noun2));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies all the cells into the given array, which must have at least size() bytes.
+	 * @param dst Destination array.
+	 */
+	void copyTo(final byte[] dst) {
+		System.arraycopy(cells, 0, dst, 0, cells.length);
+	}
+
+	/**
+	 * Copies all the cells from the given array, which must have been filled by copyTo.
+	 * @param src Source array.
+	 */
+	void copyFrom(final byte[] src) {
+		System.arraycopy(src, 0, cells, 0, cells.length);
+	}
+}
@@ -0,0 +1,240 @@
+package com.mysterymaster.androidapp;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Typeface;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.TableRow;
+import android.widget.TextView;
+
+import java.util.ArrayDeque;
+
+/**
+ * The View Pool keeps the table rows and cells removed from the forms, so the next puzzle can reuse them.<br>
+ * Each type of view has its own pool with a bounded size. A view is reset to its default state when it is borrowed.<br>
+ * Note: A text appearance cannot be undone attribute by attribute, so the headers and the chart buttons are
+ * given their style when they are created, and are kept in their own pools. A plain text view is never given a style.<br>
+ * Copyright (c) 2018 mysterymaster.com. All rights reserved.
+ * @version 2018-05-17
+ * @author Michael Benson <michael.benson@mysterymaster.com>
+ */
+final class ViewPool {
+	// Types of views.
+	static final int ROW = 0;
+	static final int TEXT = 1;
+	static final int HEADER = 2;
+	static final int CHECK = 3;
+	static final int BUTTON = 4;
+
+	/** Maximum number of views kept for each type. */
+	private static final int MAX_VIEWS = 512;
+
+	/** Main Activity. */
+	private final MainActivity activity;
+
+	/** Pool for each type of view. */
+	private final ArrayDeque<?>[] pools = new ArrayDeque<?>[]{new ArrayDeque<TableRow>(), new ArrayDeque<TextView>(),
+		new ArrayDeque<Header>(), new ArrayDeque<CheckBox>(), new ArrayDeque<ChartButton>()};
+
+	/** Text view with the TableHeader style. */
+	private static final class Header extends TextView {
+		Header(final Context context) {
+			super(context);
+			setTextAppearance(R.style.TableHeader);
+		}
+	}
+
+	/** Button with the ChartButton style. */
+	private static final class ChartButton extends Button {
+		ChartButton(final Context context) {
+			super(context);
+			setTextAppearance(R.style.ChartButton);
+			setTransformationMethod(null);
+		}
+	}
+
+	// Default text attributes of a new text view, which are restored when a text view is borrowed.
+	private final ColorStateList textColors;
+	private final float textSize;
+	private final Typeface typeface;
+
+	/** Size and padding of a new view of one type, which are restored when a view of that type is borrowed. */
+	private static final class Defaults {
+		// Minimum and maximum width and height of the text view, or -1 if given in ems or lines.
+		private final int minWidth, maxWidth, minHeight, maxHeight;
+
+		// Minimum width and height of the view.
+		private final int minimumWidth, minimumHeight;
+
+		// Padding of the view.
+		private final int left, top, right, bottom;
+
+		Defaults(final TextView txt) {
+			minWidth = txt.getMinWidth();
+			maxWidth = txt.getMaxWidth();
+			minHeight = txt.getMinHeight();
+			maxHeight = txt.getMaxHeight();
+			minimumWidth = txt.getMinimumWidth();
+			minimumHeight = txt.getMinimumHeight();
+			left = txt.getPaddingLeft();
+			top = txt.getPaddingTop();
+			right = txt.getPaddingRight();
+			bottom = txt.getPaddingBottom();
+		}
+
+		/** Restores the size, padding, and layout parameters a viewer may have set on the view, as with setWidth or setHeight. */
+		void restore(final TextView txt) {
+			if (minWidth >= 0) txt.setMinWidth(minWidth); else txt.setMinEms(0);
+			if (maxWidth >= 0) txt.setMaxWidth(maxWidth); else txt.setMaxEms(Integer.MAX_VALUE);
+			if (minHeight >= 0) txt.setMinHeight(minHeight); else txt.setMinLines(0);
+			if (maxHeight >= 0) txt.setMaxHeight(maxHeight); else txt.setMaxLines(Integer.MAX_VALUE);
+			txt.setMinimumWidth(minimumWidth);
+			txt.setMinimumHeight(minimumHeight);
+			txt.setPadding(left, top, right, bottom);
+			txt.setLayoutParams(new TableRow.LayoutParams());
+		}
+	}
+
+	// Defaults of each type of cell. Headers are text views.
+	private final Defaults textDefaults;
+	private final Defaults checkDefaults;
+	private final Defaults buttonDefaults;
+
+	/**
+	 * Constructor.
+	 * @param activity Main Activity.
+	 */
+	ViewPool(final MainActivity activity) {
+		this.activity = activity;
+		TextView txt = new TextView(activity);
+		textColors = txt.getTextColors();
+		textSize = txt.getTextSize();
+		typeface = txt.getTypeface();
+		textDefaults = new Defaults(txt);
+		checkDefaults = new Defaults(new CheckBox(activity));
+		buttonDefaults = new Defaults(new ChartButton(activity));
+	}
+
+	/**
+	 * Returns the pool for the type of view.
+	 * @param type Type of view.
+	 * @return Pool.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends View> ArrayDeque<T> getPool(final int type) {
+		return (ArrayDeque<T>) pools[type];
+	}
+
+	/** Returns a table row from the pool, or a new table row. */
+	TableRow borrowRow() {
+		ArrayDeque<TableRow> pool = getPool(ROW);
+		TableRow row = pool.pollFirst();
+		if (row == null) return new TableRow(activity);
+		row.setBaselineAligned(true);
+		row.setWeightSum(-1.0f);
+		return row;
+	}
+
+	/** Returns a text view from the pool, or a new text view. */
+	TextView borrowText() {
+		ArrayDeque<TextView> pool = getPool(TEXT);
+		TextView txt = pool.pollFirst();
+		if (txt == null) return new TextView(activity);
+		resetText(txt);
+		txt.setTextColor(textColors);
+		txt.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+		txt.setTypeface(typeface);
+		return txt;
+	}
+
+	/** Returns a header, which is a text view with the TableHeader style, from the pool, or a new header. */
+	TextView borrowHeader() {
+		ArrayDeque<Header> pool = getPool(HEADER);
+		Header hdr = pool.pollFirst();
+		if (hdr == null) return new Header(activity);
+		resetText(hdr);
+		return hdr;
+	}
+
+	/** Returns a checkbox from the pool, or a new checkbox. */
+	CheckBox borrowCheck() {
+		ArrayDeque<CheckBox> pool = getPool(CHECK);
+		CheckBox chk = pool.pollFirst();
+		if (chk == null) return new CheckBox(activity);
+		chk.setOnCheckedChangeListener(null);
+		chk.setChecked(false);
+		chk.setOnClickListener(null);
+		chk.setClickable(true);
+		chk.setGravity(Gravity.START | Gravity.CENTER_VERTICAL);
+		checkDefaults.restore(chk);
+		return chk;
+	}
+
+	/**
+	 * Returns a button with the ChartButton style from the pool, or a new button. Note: Buttons are only used by the Chart form.
+	 * @return Button.
+	 */
+	Button borrowChartButton() {
+		ArrayDeque<ChartButton> pool = getPool(BUTTON);
+		ChartButton btn = pool.pollFirst();
+		if (btn == null) return new ChartButton(activity);
+		btn.setText("");
+		btn.setOnClickListener(null);
+		buttonDefaults.restore(btn);
+		return btn;
+	}
+
+	/**
+	 * Resets the attributes a viewer may have set on the text view or header, other than its style.
+	 * @param txt Text view.
+	 */
+	private void resetText(final TextView txt) {
+		txt.setText("");
+		txt.setGravity(Gravity.START | Gravity.TOP);
+		txt.setEllipsize(null);
+		txt.setBackground(null);
+		txt.setOnClickListener(null);
+		txt.setClickable(false);
+		textDefaults.restore(txt);
+	}
+
+	/**
+	 * Removes all the rows of the table, and returns the rows and their cells to the pools.<br>
+	 * Called by the viewers instead of table.removeAllViews.
+	 * @param table Table layout, or any view group whose children are table rows.
+	 */
+	void recycle(final ViewGroup table) {
+		for (int i = table.getChildCount() - 1; i >= 0; i--) {
+			View view = table.getChildAt(i);
+			if (!(view instanceof TableRow)) continue;
+			TableRow row = (TableRow) view;
+			for (int j = row.getChildCount() - 1; j >= 0; j--) give(row.getChildAt(j));
+			row.removeAllViews();
+		}
+		for (int i = table.getChildCount() - 1; i >= 0; i--) {
+			View view = table.getChildAt(i);
+			table.removeViewAt(i);
+			if (view instanceof TableRow) give(view);
+		}
+	}
+
+	/**
+	 * Puts the view in the pool for its type, unless the pool is full.
+	 * @param view View.
+	 */
+	private void give(final View view) {
+		ArrayDeque<View> pool;
+		if (view instanceof TableRow) pool = getPool(ROW);
+		else if (view instanceof CheckBox) pool = getPool(CHECK);
+		else if (view instanceof ChartButton) pool = getPool(BUTTON);
+		else if (view instanceof Header) pool = getPool(HEADER);
+		else if (view.getClass() == TextView.class) pool = getPool(TEXT);
+		else return;
+		if (pool.size() < MAX_VIEWS) pool.addFirst(view);
+	}
+}